@@ -6,51 +6,162 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.net.Socket;
+import java.nio.channels.Channels;
 
 /**
 * This is the sample client for you to connect to your game server.
 *
 * <p>Input are taken from stdin and output goes to stdout.
+* When the server accepts a persistent session, one connection carries every command;
+* otherwise a new connection is opened per command as before. Lines that are already
+* waiting on stdin (pasted or piped scripts) are pipelined: sent back-to-back and
+* their replies read afterwards, in order. Sessions also negotiate length-prefixed
+* framing, so each reply is read in one bulk read rather than scanned line by line.
 */
 public final class GameClient {
 
     private static final char END_OF_TRANSMISSION = 4;
+    private static final String SESSION_COMMAND = "#session";
+    private static final String SESSION_ACCEPTED = "Session started";
+    private static final String FRAMING_COMMAND = "#framing length";
+    private static final String FRAMING_ACCEPTED = "Framing set to length";
+    private static final int MAX_PIPELINE_DEPTH = 64;
 
     public static void main(String[] args) throws IOException {
         String username = args[0];
-        while (!Thread.interrupted()) GameClient.handleNextCommand(username);
+        BufferedReader commandLine = new BufferedReader(new InputStreamReader(System.in));
+        try (var socket = new Socket("localhost", 8888);
+        var socketReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        var socketWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            if (GameClient.startSession(socketReader, socketWriter)) {
+                LengthFrameReader frameReader = null;
+                if (GameClient.negotiateLengthFraming(socketReader, socketWriter)) {
+                    // Nothing follows the acknowledgement yet, so the text reader has not buffered any frame bytes
+                    frameReader = new LengthFrameReader(Channels.newChannel(socket.getInputStream()));
+                }
+                while (!Thread.interrupted()) GameClient.handleNextCommands(username, commandLine, socketReader, frameReader, socketWriter);
+                return;
+            }
+        }
+        // Listener does not keep connections open, fall back to one connection per command
+        while (!Thread.interrupted()) GameClient.handleNextCommand(username, commandLine);
     }
 
-    private static void handleNextCommand(String username) throws IOException {
-        StringBuilder promptBuilder = new StringBuilder();
-        promptBuilder.append(username);
-        promptBuilder.append(":> ");
-        System.out.print(promptBuilder.toString());
-        BufferedReader commandLine = new BufferedReader(new InputStreamReader(System.in));
-        String command = commandLine.readLine();
+    /**
+     * Asks the server to keep this connection open.
+     *
+     * @return true if the server accepted the persistent session.
+     */
+    private static boolean startSession(BufferedReader socketReader, BufferedWriter socketWriter) throws IOException {
+        StringBuilder sessionBuilder = new StringBuilder();
+        sessionBuilder.append(SESSION_COMMAND);
+        sessionBuilder.append("\n");
+        socketWriter.write(sessionBuilder.toString());
+        socketWriter.flush();
+        String reply = GameClient.readResponse(socketReader, false);
+        return reply.startsWith(SESSION_ACCEPTED);
+    }
+
+    /**
+     * @return true if the server will send every following reply length-prefixed.
+     */
+    private static boolean negotiateLengthFraming(BufferedReader socketReader, BufferedWriter socketWriter) throws IOException {
+        StringBuilder framingBuilder = new StringBuilder();
+        framingBuilder.append(FRAMING_COMMAND);
+        framingBuilder.append("\n");
+        socketWriter.write(framingBuilder.toString());
+        socketWriter.flush();
+        String reply = GameClient.readResponse(socketReader, false);
+        return reply.startsWith(FRAMING_ACCEPTED);
+    }
+
+    private static void handleNextCommand(String username, BufferedReader commandLine) throws IOException {
+        String command = GameClient.promptForCommand(username, commandLine);
+        if (command == null) {
+            return;
+        }
         try (var socket = new Socket("localhost", 8888);
         var socketReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
         var socketWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
-            StringBuilder commandBuilder = new StringBuilder();
-            commandBuilder.append(username);
-            commandBuilder.append(": ");
-            commandBuilder.append(command);
-            commandBuilder.append("\n");
-            socketWriter.write(commandBuilder.toString());
+            GameClient.writeCommand(username, command, socketWriter);
             socketWriter.flush();
-            String incomingMessage = socketReader.readLine();
-            if (incomingMessage == null) {
-                throw new IOException("Server disconnected (end-of-stream)");
+            GameClient.readResponse(socketReader, true);
+        }
+    }
+
+    /**
+     * Sends the next command plus any further lines already buffered on stdin,
+     * then reads one reply per command sent.
+     */
+    private static void handleNextCommands(String username, BufferedReader commandLine, BufferedReader socketReader, LengthFrameReader frameReader, BufferedWriter socketWriter) throws IOException {
+        String command = GameClient.promptForCommand(username, commandLine);
+        int sent = 0;
+        while (command != null) {
+            GameClient.writeCommand(username, command, socketWriter);
+            sent++;
+            if (sent >= MAX_PIPELINE_DEPTH || !commandLine.ready()) {
+                break;
             }
-            StringBuilder eotBuilder = new StringBuilder();
-            eotBuilder.append("");
-            eotBuilder.append(END_OF_TRANSMISSION);
-            eotBuilder.append("");
-            String eotString = eotBuilder.toString();
-            while (incomingMessage != null && !incomingMessage.contains(eotString)) {
+            command = commandLine.readLine();
+        }
+        socketWriter.flush();
+        for (int received = 0; received < sent; received++) {
+            if (frameReader == null) {
+                GameClient.readResponse(socketReader, true);
+            } else {
+                System.out.println(frameReader.readFrame());
+            }
+        }
+    }
+
+    /**
+     * @return The next command, or null once stdin is closed (which also ends the client loop).
+     */
+    private static String promptForCommand(String username, BufferedReader commandLine) throws IOException {
+        StringBuilder promptBuilder = new StringBuilder();
+        promptBuilder.append(username);
+        promptBuilder.append(":> ");
+        System.out.print(promptBuilder.toString());
+        String command = commandLine.readLine();
+        if (command == null) {
+            Thread.currentThread().interrupt();
+        }
+        return command;
+    }
+
+    private static void writeCommand(String username, String command, BufferedWriter socketWriter) throws IOException {
+        StringBuilder commandBuilder = new StringBuilder();
+        commandBuilder.append(username);
+        commandBuilder.append(": ");
+        commandBuilder.append(command);
+        commandBuilder.append("\n");
+        socketWriter.write(commandBuilder.toString());
+    }
+
+    /**
+     * Reads lines up to the END_OF_TRANSMISSION marker, printing them when asked to.
+     *
+     * @return The response text without the marker.
+     */
+    private static String readResponse(BufferedReader socketReader, boolean print) throws IOException {
+        String incomingMessage = socketReader.readLine();
+        if (incomingMessage == null) {
+            throw new IOException("Server disconnected (end-of-stream)");
+        }
+        StringBuilder eotBuilder = new StringBuilder();
+        eotBuilder.append("");
+        eotBuilder.append(END_OF_TRANSMISSION);
+        eotBuilder.append("");
+        String eotString = eotBuilder.toString();
+        StringBuilder responseBuilder = new StringBuilder();
+        while (incomingMessage != null && !incomingMessage.contains(eotString)) {
+            if (print) {
                 System.out.println(incomingMessage);
-                incomingMessage = socketReader.readLine();
             }
+            responseBuilder.append(incomingMessage);
+            responseBuilder.append("\n");
+            incomingMessage = socketReader.readLine();
         }
+        return responseBuilder.toString();
     }
 }
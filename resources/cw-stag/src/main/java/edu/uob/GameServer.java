@@ -2,27 +2,33 @@ package edu.uob;
 
 import edu.uob.actions.CustomAction;
 import edu.uob.actions.GameAction;
+import edu.uob.games.ActorCommandEngine;
+import edu.uob.games.CommandEngine;
 import edu.uob.games.GameController;
 import edu.uob.games.GameState;
 import edu.uob.games.GameWorld;
+import edu.uob.games.SequencedCommandEngine;
+import edu.uob.games.SerialCommandEngine;
+import edu.uob.games.ShardedCommandEngine;
 import edu.uob.parsers.ActionParser;
 import edu.uob.parsers.EntityParser;
+import edu.uob.servers.AdmissionController;
+import edu.uob.servers.ConnectionWatchdog;
+import edu.uob.servers.HttpGateway;
+import edu.uob.servers.SelectorListener;
+import edu.uob.servers.ServerConfig;
+import edu.uob.servers.ServerMetrics;
+import edu.uob.servers.SocketConnectionHandler;
+import edu.uob.servers.ThreadPerConnectionListener;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.net.ServerSocket;
-import java.net.Socket;
 import java.nio.file.Paths;
 import java.util.Set;
 
 public final class GameServer {
 
-    private static final char END_OF_TRANSMISSION = 4;
-
     public static void main(String[] args) throws IOException {
         StringBuilder entitiesPathBuilder = new StringBuilder();
         entitiesPathBuilder.append("resources");
@@ -45,12 +51,33 @@ public final class GameServer {
         File actionsFile = Paths.get(actionsPathBuilder.toString()).toAbsolutePath().toFile();
         
         GameServer server = new GameServer(entitiesFile, actionsFile);
-        server.blockingListenOn(8888);
+        // Blocking mode stays the default, pass "nio" to multiplex connections on a selector
+        // or "threaded" to serve every connection on its own (virtual when available) thread,
+        // "http" serves batched JSON commands on port 8080 instead of the line protocol
+        String mode = "blocking";
+        if (args.length > 0) {
+            mode = args[0];
+        }
+        if (mode.equalsIgnoreCase("nio")) {
+            server.nonBlockingListenOn(8888);
+        } else if (mode.equalsIgnoreCase("threaded")) {
+            server.threadPerConnectionListenOn(8888);
+        } else if (mode.equalsIgnoreCase("http")) {
+            server.httpListenOn(8080);
+        } else {
+            server.blockingListenOn(8888);
+        }
     }
 
     private GameWorld world;
     private GameState state;
     private GameController controller;
+    private CommandEngine engine;
+    private ServerConfig config;
+    private ServerMetrics metrics;
+    private AdmissionController admission;
+    private ConnectionWatchdog watchdog;
+    private SocketConnectionHandler connectionHandler;
 
     /**
     * Do not change the following method signature or we won't be able to mark your submission
@@ -88,11 +115,14 @@ public final class GameServer {
             for (GameAction action : actions) {
                 this.world.addAction(action);
             }
+            this.world.compileActionPlans();
             this.state = new GameState();
             this.controller = new GameController(world, state);
             if (this.controller == null) {
                 throw new IllegalStateException("GameController is null!");
             }
+            this.metrics = new ServerMetrics();
+            this.setServerConfig(ServerConfig.fromSystemProperties());
 
         } catch (Exception e) {
             StringBuilder errorMsg = new StringBuilder();
@@ -105,6 +135,45 @@ public final class GameServer {
         }
     }
 
+    /**
+    * Replaces the connection limits and execution engine; call before starting a listener.
+    * The engine it replaces is closed, so its threads do not outlive it.
+    *
+    * @param config The limits and engine every listener started afterwards uses.
+    */
+    public void setServerConfig(ServerConfig config) {
+        this.config = config;
+        if (this.engine != null) {
+            this.engine.close();
+        }
+        this.engine = this.newEngine(this.config.getEngine());
+        this.admission = new AdmissionController(this.config, this.metrics);
+        this.watchdog = new ConnectionWatchdog(this.config, this.metrics);
+        // The blocking accept loop serves one socket at a time, so it refuses persistent sessions
+        this.connectionHandler = new SocketConnectionHandler(this.engine, this.admission, this.watchdog, false);
+    }
+
+    private CommandEngine newEngine(String engineName) {
+        if (engineName.equalsIgnoreCase("sharded")) {
+            return new ShardedCommandEngine(this.controller, this.world, this.state);
+        }
+        if (engineName.equalsIgnoreCase("actor")) {
+            return new ActorCommandEngine(this.controller, this.world, this.state);
+        }
+        if (engineName.equalsIgnoreCase("sequencer")) {
+            return new SequencedCommandEngine(this.controller);
+        }
+        return new SerialCommandEngine(this.controller);
+    }
+
+    public ServerConfig getServerConfig() {
+        return this.config;
+    }
+
+    public ServerMetrics getMetrics() {
+        return this.metrics;
+    }
+
     /**
     * Do not change the following method signature or we won't be able to mark your submission
     * This method handles all incoming game commands and carries out the corresponding actions.</p>
@@ -113,7 +182,7 @@ public final class GameServer {
     */
     public String handleCommand(String command) {
         // TODO implement your server logic here
-        return controller.handleCommand(command);
+        return this.engine.execute(command);
     }
 
     /**
@@ -139,6 +208,42 @@ public final class GameServer {
         }
     }
 
+    /**
+    * Starts a non-blocking socket server that multiplexes every open connection
+    * on a single selector thread instead of serving them one at a time.
+    *
+    * @param portNumber The port to listen on.
+    * @throws IOException If any IO related operation fails.
+    */
+    public void nonBlockingListenOn(int portNumber) throws IOException {
+        SelectorListener listener = new SelectorListener(this.engine, this.admission, this.config, this.metrics);
+        listener.listenOn(portNumber);
+    }
+
+    /**
+    * Starts a socket server that serves every accepted connection on its own thread.
+    * Virtual threads are used on Java 21+, so thousands of idle clients stay cheap.
+    *
+    * @param portNumber The port to listen on.
+    * @throws IOException If any IO related operation fails.
+    */
+    public void threadPerConnectionListenOn(int portNumber) throws IOException {
+        SocketConnectionHandler sessionHandler = new SocketConnectionHandler(this.engine, this.admission, this.watchdog, true);
+        ThreadPerConnectionListener listener = new ThreadPerConnectionListener(sessionHandler);
+        listener.listenOn(portNumber);
+    }
+
+    /**
+    * Starts an HTTP endpoint that takes JSON arrays of commands, see {@link HttpGateway}.
+    *
+    * @param portNumber The port to listen on.
+    * @throws IOException If any IO related operation fails.
+    */
+    public void httpListenOn(int portNumber) throws IOException {
+        HttpGateway gateway = new HttpGateway(this.engine, this.admission, this.config);
+        gateway.listenOn(portNumber);
+    }
+
     /**
     * Do not change the following method signature or we won't be able to mark your submission
     * Handles an incoming connection from the socket server.
@@ -147,25 +252,6 @@ public final class GameServer {
     * @throws IOException If any IO related operation fails.
     */
     private void blockingHandleConnection(ServerSocket serverSocket) throws IOException {
-        try (Socket s = serverSocket.accept();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream()));
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(s.getOutputStream()))) {
-            System.out.println("Connection established");
-            String incomingCommand = reader.readLine();
-            if(incomingCommand != null) {
-                StringBuilder msgBuilder = new StringBuilder();
-                msgBuilder.append("Received message from ");
-                msgBuilder.append(incomingCommand);
-                System.out.println(msgBuilder.toString());
-                String result = this.handleCommand(incomingCommand);
-                writer.write(result);
-                StringBuilder endBuilder = new StringBuilder();
-                endBuilder.append("\n");
-                endBuilder.append(END_OF_TRANSMISSION);
-                endBuilder.append("\n");
-                writer.write(endBuilder.toString());
-                writer.flush();
-            }
-        }
+        this.connectionHandler.serve(serverSocket.accept());
     }
 }
@@ -0,0 +1,73 @@
+package edu.uob;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear microsecond buckets.
+ * Every power of two is split into 64 sub-buckets, so any reported percentile
+ * is within about 1.5% of the recorded value.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 64;
+    private static final int MAX_EXPONENT = 40;
+
+    private final AtomicLongArray counts;
+
+    LatencyHistogram() {
+        this.counts = new AtomicLongArray(SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+    }
+
+    void recordNanos(long nanos) {
+        long micros = Math.max(0L, nanos / 1000L);
+        this.counts.incrementAndGet(LatencyHistogram.bucketFor(micros));
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            total += this.counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @param percentile A value between 0 and 100, such as 99.9.
+     * @return The latency in microseconds at or below which that share of samples fell.
+     */
+    long percentileMicros(double percentile) {
+        long total = this.count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return LatencyHistogram.valueFor(i);
+            }
+        }
+        return LatencyHistogram.valueFor(this.counts.length() - 1);
+    }
+
+    static int bucketFor(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+        return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+    }
+
+    static long valueFor(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long mantissa = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return (SUB_BUCKETS + mantissa) << shift;
+    }
+}
@@ -0,0 +1,82 @@
+package edu.uob;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads length-prefixed replies (four byte big-endian length, then UTF-8 payload)
+ * into one reusable buffer, instead of scanning line by line for END_OF_TRANSMISSION.
+ */
+final class LengthFrameReader {
+
+    private static final int HEADER_BYTES = 4;
+    private static final char END_OF_TRANSMISSION = 4;
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer header;
+    private ByteBuffer payload;
+
+    LengthFrameReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.header = ByteBuffer.allocate(HEADER_BYTES);
+        this.payload = ByteBuffer.allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Blocks until one whole reply has arrived.
+     *
+     * @return The decoded reply text.
+     * @throws IOException If the server disconnects part way through a reply.
+     */
+    String readFrame() throws IOException {
+        this.header.clear();
+        this.fill(this.header);
+        int length = this.header.getInt(0);
+        if (length > this.payload.capacity()) {
+            this.payload = ByteBuffer.allocate(length);
+        }
+        this.payload.clear();
+        this.payload.limit(length);
+        this.fill(this.payload);
+        this.payload.flip();
+        return StandardCharsets.UTF_8.decode(this.payload).toString();
+    }
+
+    /**
+     * Reads one END_OF_TRANSMISSION-terminated reply, such as a handshake acknowledgement,
+     * a byte at a time so nothing past the marker is consumed.
+     *
+     * @return The reply text without the trailing marker line.
+     * @throws IOException If the server disconnects part way through a reply.
+     */
+    String readEndOfTransmissionReply() throws IOException {
+        ByteBuffer single = ByteBuffer.allocate(1);
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        while (true) {
+            single.clear();
+            this.fill(single);
+            byte next = single.get(0);
+            if (next == END_OF_TRANSMISSION) {
+                break;
+            }
+            reply.write(next);
+        }
+        // Swallow the newline that follows the marker
+        single.clear();
+        this.fill(single);
+        return reply.toString(StandardCharsets.UTF_8).trim();
+    }
+
+    private void fill(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer) == -1) {
+                throw new EOFException("Server disconnected (end-of-stream)");
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package edu.uob;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.entities.Artefact;
+import edu.uob.entities.Location;
+import edu.uob.games.GameWorld;
+import edu.uob.parsers.ActionParser;
+import edu.uob.parsers.EntityParser;
+import edu.uob.servers.AdmissionController;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Closed-loop load generator: N simulated players walk the configured world through a
+ * running GameServer, each sending its next command as soon as the previous reply arrives.
+ * Prints throughput and p50/p99/p999 latency per command type.
+ *
+ * <p>The bots share a few persistent connections, so the server must run a listener that
+ * accepts sessions: start it with the "threaded" or "nio" mode. The default blocking
+ * listener answers one command per connection and refuses the session handshake.
+ *
+ * <p>Closed-loop bots outrun the server's per-player rate limit within seconds, so start
+ * the server with -Dstag.commandsPerSecond=0 to measure game commands. Busy replies are
+ * counted on their own and kept out of the latency figures, whatever the server's limits.
+ *
+ * <p>Usage: LoadGenerator players seconds [entities.dot] [actions.xml] [host] [port] [connections],
+ * against a server started as "GameServer threaded" or "GameServer nio".
+ */
+public final class LoadGenerator {
+
+    private static final int DEFAULT_CONNECTIONS = 4;
+    private static final String START_LOCATION = "cabin";
+    private static final String USAGE = "Usage: LoadGenerator players seconds [entities.dot] [actions.xml] [host] [port] [connections]%n%s";
+    private static final String NEEDS_SESSIONS = "The server must accept persistent sessions: start it with \"GameServer threaded\" or \"GameServer nio\".";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println(String.format(USAGE, NEEDS_SESSIONS));
+            return;
+        }
+        int players = Integer.parseInt(args[0]);
+        int seconds = Integer.parseInt(args[1]);
+        File entitiesFile = LoadGenerator.configFile("basic-entities.dot");
+        File actionsFile = LoadGenerator.configFile("basic-actions.xml");
+        String host = "localhost";
+        int port = 8888;
+        int connections = DEFAULT_CONNECTIONS;
+        if (args.length > 2) {
+            entitiesFile = Paths.get(args[2]).toAbsolutePath().toFile();
+        }
+        if (args.length > 3) {
+            actionsFile = Paths.get(args[3]).toAbsolutePath().toFile();
+        }
+        if (args.length > 4) {
+            host = args[4];
+        }
+        if (args.length > 5) {
+            port = Integer.parseInt(args[5]);
+        }
+        if (args.length > 6) {
+            connections = Integer.parseInt(args[6]);
+        }
+        LoadGenerator generator = new LoadGenerator(entitiesFile, actionsFile);
+        MultiplexedGameClient client;
+        try {
+            client = new MultiplexedGameClient(host, port, connections);
+        } catch (IOException e) {
+            System.out.println(String.format("Could not open persistent sessions with %s:%d (%s).", host, port, e.getMessage()));
+            System.out.println(NEEDS_SESSIONS);
+            return;
+        }
+        try (client) {
+            generator.run(client, players, TimeUnit.SECONDS.toNanos(seconds));
+        }
+        System.out.println(generator.report());
+    }
+
+    private static File configFile(String fileName) {
+        StringBuilder pathBuilder = new StringBuilder();
+        pathBuilder.append("resources");
+        pathBuilder.append(File.separator);
+        pathBuilder.append("cw-stag");
+        pathBuilder.append(File.separator);
+        pathBuilder.append("config");
+        pathBuilder.append(File.separator);
+        pathBuilder.append(fileName);
+        return Paths.get(pathBuilder.toString()).toAbsolutePath().toFile();
+    }
+
+    private final GameWorld world;
+    private final List<String> artefactNames;
+    private final List<String> customCommands;
+    private final Map<String, LatencyHistogram> latencies;
+    private final AtomicLong failures;
+    private final AtomicLong busyReplies;
+    private long elapsedNanos;
+
+    /**
+     * Reads the world so the simulated players only issue commands that make sense in it.
+     */
+    public LoadGenerator(File entitiesFile, File actionsFile) {
+        this.world = new EntityParser().parseEntities(entitiesFile);
+        if (this.world == null) {
+            throw new IllegalArgumentException("Could not parse the entities file");
+        }
+        this.artefactNames = new LinkedList<>();
+        for (Location location : this.world.getLocations()) {
+            for (Artefact artefact : location.getArtefacts()) {
+                this.artefactNames.add(artefact.getName());
+            }
+        }
+        this.customCommands = new LinkedList<>();
+        Set<CustomAction> actions = new ActionParser().parseAction(actionsFile);
+        for (CustomAction action : actions) {
+            if (action.getTriggers().isEmpty()) {
+                continue;
+            }
+            StringBuilder commandBuilder = new StringBuilder();
+            commandBuilder.append(action.getTriggers().get(0));
+            for (String subject : action.getSubjects()) {
+                commandBuilder.append(" ");
+                commandBuilder.append(subject);
+            }
+            this.customCommands.add(commandBuilder.toString());
+        }
+        this.latencies = new ConcurrentHashMap<>();
+        this.failures = new AtomicLong();
+        this.busyReplies = new AtomicLong();
+        this.elapsedNanos = 0;
+    }
+
+    /**
+     * Runs every simulated player until the duration has passed and its last command has been answered.
+     */
+    public void run(MultiplexedGameClient client, int players, long durationNanos) throws InterruptedException {
+        ExecutorService issuer = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        CountDownLatch finished = new CountDownLatch(players);
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        try {
+            for (int i = 0; i < players; i++) {
+                StringBuilder nameBuilder = new StringBuilder();
+                nameBuilder.append("bot");
+                nameBuilder.append(i);
+                SimulatedPlayer player = new SimulatedPlayer(nameBuilder.toString(), client, issuer, deadline, finished);
+                player.sendNext();
+            }
+            finished.await();
+        } finally {
+            issuer.shutdownNow();
+        }
+        this.elapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * @return A table with one row per command type plus the overall throughput.
+     */
+    public String report() {
+        Map<String, LatencyHistogram> sorted = new TreeMap<>(this.latencies);
+        double seconds = Math.max(1L, this.elapsedNanos) / 1.0e9;
+        long total = 0;
+        StringBuilder reportBuilder = new StringBuilder();
+        reportBuilder.append(String.format("%-8s %10s %10s %10s %10s %10s%n", "command", "count", "ops/s", "p50 ms", "p99 ms", "p999 ms"));
+        for (Map.Entry<String, LatencyHistogram> entry : sorted.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            long count = histogram.count();
+            total += count;
+            reportBuilder.append(String.format("%-8s %10d %10.1f %10.3f %10.3f %10.3f%n", entry.getKey(), count, count / seconds,
+                    histogram.percentileMicros(50) / 1000.0, histogram.percentileMicros(99) / 1000.0, histogram.percentileMicros(99.9) / 1000.0));
+        }
+        reportBuilder.append(String.format("total    %10d %10.1f ops/s over %.1f s, %d failed, %d busy%n", total, total / seconds, seconds,
+                this.failures.get(), this.busyReplies.get()));
+        if (this.busyReplies.get() > 0) {
+            reportBuilder.append(String.format("Busy replies are not in the figures above; start the server with -Dstag.commandsPerSecond=0 to lift the per-player limit.%n"));
+        }
+        return reportBuilder.toString();
+    }
+
+    private LatencyHistogram histogramFor(String commandType) {
+        LatencyHistogram histogram = this.latencies.get(commandType);
+        if (histogram == null) {
+            this.latencies.putIfAbsent(commandType, new LatencyHistogram());
+            histogram = this.latencies.get(commandType);
+        }
+        return histogram;
+    }
+
+    private static String pick(List<String> names) {
+        return names.get(ThreadLocalRandom.current().nextInt(names.size()));
+    }
+
+    /**
+     * One closed-loop player. It tracks its own location from goto replies so
+     * goto commands follow real paths, and issues its next command from the
+     * reply callback on the issuer pool (never on the client's reader thread).
+     * The reply is timed on the thread that completes it, before the hand-off, so
+     * time spent queued for an issuer thread is not counted as server latency.
+     */
+    private class SimulatedPlayer implements BiConsumer<String, Throwable> {
+        private final String name;
+        private final MultiplexedGameClient client;
+        private final ExecutorService issuer;
+        private final long deadline;
+        private final CountDownLatch finished;
+        private final ReplyClock clock;
+        private String location;
+        private String commandType;
+        private long sentAt;
+        private long repliedAt;
+
+        private SimulatedPlayer(String name, MultiplexedGameClient client, ExecutorService issuer, long deadline, CountDownLatch finished) {
+            this.name = name;
+            this.client = client;
+            this.issuer = issuer;
+            this.deadline = deadline;
+            this.finished = finished;
+            this.clock = new ReplyClock();
+            this.location = START_LOCATION;
+        }
+
+        private void sendNext() {
+            String command = this.chooseCommand();
+            this.sentAt = System.nanoTime();
+            this.client.send(this.name, command).whenComplete(this.clock).whenCompleteAsync(this, this.issuer);
+        }
+
+        @Override
+        public void accept(String reply, Throwable failure) {
+            long latency = this.repliedAt - this.sentAt;
+            if (failure != null) {
+                LoadGenerator.this.failures.incrementAndGet();
+                this.finished.countDown();
+                return;
+            }
+            if (reply.startsWith(AdmissionController.BUSY_REPLY)) {
+                // The busy fast path says nothing about how long game commands take
+                LoadGenerator.this.busyReplies.incrementAndGet();
+            } else {
+                LoadGenerator.this.histogramFor(this.commandType).recordNanos(latency);
+                this.trackLocation(reply);
+            }
+            if (System.nanoTime() >= this.deadline) {
+                this.finished.countDown();
+                return;
+            }
+            this.sendNext();
+        }
+
+        // Runs synchronously on the completing thread, the async stage reads what it stored
+        private class ReplyClock implements BiConsumer<String, Throwable> {
+            @Override
+            public void accept(String reply, Throwable failure) {
+                SimulatedPlayer.this.repliedAt = System.nanoTime();
+            }
+        }
+
+        private void trackLocation(String reply) {
+            if (reply.startsWith("You moved to ")) {
+                this.location = reply.substring("You moved to ".length(), reply.length() - 1);
+            } else if (reply.contains("resurrected")) {
+                this.location = START_LOCATION;
+            }
+        }
+
+        /**
+         * Mix: 40% look, 25% goto, 15% get, 15% custom action, 5% inventory.
+         */
+        private String chooseCommand() {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+            Location current = LoadGenerator.this.world.getLocation(this.location);
+            StringBuilder commandBuilder = new StringBuilder();
+            if (roll < 25 && current != null && !current.getPaths().isEmpty()) {
+                this.commandType = "goto";
+                commandBuilder.append("goto ");
+                commandBuilder.append(LoadGenerator.pick(new LinkedList<>(current.getPaths())));
+            } else if (roll < 40 && !LoadGenerator.this.artefactNames.isEmpty()) {
+                this.commandType = "get";
+                commandBuilder.append("get ");
+                commandBuilder.append(LoadGenerator.pick(LoadGenerator.this.artefactNames));
+            } else if (roll < 55 && !LoadGenerator.this.customCommands.isEmpty()) {
+                this.commandType = "custom";
+                commandBuilder.append(LoadGenerator.pick(LoadGenerator.this.customCommands));
+            } else if (roll < 60) {
+                this.commandType = "inv";
+                commandBuilder.append("inv");
+            } else {
+                this.commandType = "look";
+                commandBuilder.append("look");
+            }
+            return commandBuilder.toString();
+        }
+    }
+}
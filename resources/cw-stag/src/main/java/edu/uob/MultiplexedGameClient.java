@@ -0,0 +1,167 @@
+package edu.uob;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Client library that drives many players over a small pool of persistent session connections.
+ *
+ * <p>Every player name is pinned to one connection, so a player's commands are sent and
+ * answered in order while different players share sockets. Commands are pipelined: {@link #send}
+ * writes immediately and returns a future that completes when the reply arrives.
+ */
+public final class MultiplexedGameClient implements Closeable {
+
+    private final Map<Integer, Connection> connections;
+
+    /**
+     * Opens the connection pool and negotiates sessions with length-prefixed replies.
+     *
+     * @param host The server host.
+     * @param portNumber The server port.
+     * @param connectionCount How many sockets to share between all players.
+     * @throws IOException If a connection cannot be opened or refuses the session.
+     */
+    public MultiplexedGameClient(String host, int portNumber, int connectionCount) throws IOException {
+        if (connectionCount < 1) {
+            throw new IllegalArgumentException("Need at least one connection");
+        }
+        this.connections = new HashMap<>();
+        try {
+            for (int i = 0; i < connectionCount; i++) {
+                Connection connection = new Connection(new Socket(host, portNumber));
+                this.connections.put(i, connection);
+                connection.handshake();
+                Thread readerThread = new Thread(connection);
+                readerThread.setDaemon(true);
+                readerThread.start();
+            }
+        } catch (IOException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends one command on behalf of a player.
+     *
+     * @param player The player name, sent as the "player:" prefix.
+     * @param command The command text.
+     * @return A future completed with the server's reply, or exceptionally if the connection fails.
+     */
+    public CompletableFuture<String> send(String player, String command) {
+        int slot = Math.floorMod(player.hashCode(), this.connections.size());
+        StringBuilder lineBuilder = new StringBuilder();
+        lineBuilder.append(player);
+        lineBuilder.append(": ");
+        lineBuilder.append(command);
+        lineBuilder.append("\n");
+        return this.connections.get(slot).send(lineBuilder.toString());
+    }
+
+    @Override
+    public void close() {
+        for (Connection connection : this.connections.values()) {
+            connection.close();
+        }
+    }
+
+    /**
+     * One pooled socket; replies arrive in the order commands were written,
+     * so the reader thread completes pending futures first-in first-out.
+     */
+    private static class Connection implements Runnable {
+        private final Socket socket;
+        private final WritableByteChannel writer;
+        private final LengthFrameReader frameReader;
+        private final Queue<CompletableFuture<String>> pending;
+        private boolean broken;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.writer = Channels.newChannel(socket.getOutputStream());
+            this.frameReader = new LengthFrameReader(Channels.newChannel(socket.getInputStream()));
+            this.pending = new ConcurrentLinkedQueue<>();
+            this.broken = false;
+        }
+
+        private void handshake() throws IOException {
+            this.write("#session\n");
+            if (!this.frameReader.readEndOfTransmissionReply().startsWith("Session started")) {
+                throw new IOException("Server refused a persistent session");
+            }
+            this.write("#framing length\n");
+            if (!this.frameReader.readEndOfTransmissionReply().startsWith("Framing set to length")) {
+                throw new IOException("Server refused length-prefixed framing");
+            }
+        }
+
+        private CompletableFuture<String> send(String line) {
+            CompletableFuture<String> reply = new CompletableFuture<>();
+            synchronized (this) {
+                if (this.broken) {
+                    reply.completeExceptionally(new IOException("Connection closed"));
+                    return reply;
+                }
+                // Queue before writing, the reply may arrive before write() returns
+                this.pending.add(reply);
+                try {
+                    this.write(line);
+                } catch (IOException e) {
+                    this.fail(e);
+                }
+            }
+            return reply;
+        }
+
+        private void write(String line) throws IOException {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(line);
+            while (bytes.hasRemaining()) {
+                this.writer.write(bytes);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    String reply = this.frameReader.readFrame();
+                    CompletableFuture<String> head = this.pending.poll();
+                    if (head != null) {
+                        head.complete(reply);
+                    }
+                }
+            } catch (IOException e) {
+                this.fail(e);
+            }
+        }
+
+        private synchronized void fail(IOException cause) {
+            this.broken = true;
+            CompletableFuture<String> next = this.pending.poll();
+            while (next != null) {
+                next.completeExceptionally(cause);
+                next = this.pending.poll();
+            }
+            this.close();
+        }
+
+        private void close() {
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+                System.out.println("Connection closed");
+            }
+        }
+    }
+}
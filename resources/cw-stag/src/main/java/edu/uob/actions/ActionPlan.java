@@ -0,0 +1,228 @@
+package edu.uob.actions;
+
+import edu.uob.entities.Artefact;
+import edu.uob.entities.CanonicalNames;
+import edu.uob.entities.Furniture;
+import edu.uob.entities.GameCharacter;
+import edu.uob.entities.GameEntity;
+import edu.uob.entities.Location;
+import edu.uob.games.GameWorld;
+import edu.uob.games.PlayerState;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A custom action compiled against a loaded world: consumed names are canonical, path
+ * productions are split into a resolved source location and a destination name, and
+ * produced entities carry the template they are copied from. Applying a plan does no
+ * parsing or world-wide lookups, only changes to the player and their location.
+ *
+ * <p>Immutable once built, so one plan is shared by every command that runs its action.
+ * A produced entity with no template in the world yet makes a plain artefact; the plan
+ * reports those names so the world can recompile it once such an entity turns up.
+ */
+public final class ActionPlan {
+
+    private static final String PATH_SEPARATOR = "->";
+
+    private final CustomAction action;
+    private final List<Step> consumptions;
+    private final List<Step> productions;
+    // Locations that get a new path, the only ones a plan changes besides the player's own
+    private final Set<Location> pathSources;
+    // Canonical names produced as plain artefacts because no template was found
+    private final Set<String> missingTemplates;
+
+    public ActionPlan(CustomAction action, GameWorld world) {
+        this.action = action;
+        LinkedList<Step> consumptions = new LinkedList<>();
+        for (String consumed : action.getConsumed()) {
+            consumptions.add(new Consumption(CanonicalNames.intern(consumed)));
+        }
+        LinkedList<Step> productions = new LinkedList<>();
+        Set<Location> pathSources = new LinkedHashSet<>();
+        Set<String> missingTemplates = new LinkedHashSet<>();
+        for (String produced : action.getProduced()) {
+            PathProduction path = ActionPlan.compilePath(produced, world);
+            if (path != null) {
+                productions.add(path);
+                if (path.source != null) {
+                    pathSources.add(path.source);
+                }
+            } else {
+                EntityProduction production = ActionPlan.compileEntity(produced, world);
+                productions.add(production);
+                if (production.template == null && !production.carried) {
+                    missingTemplates.add(CanonicalNames.intern(produced));
+                }
+            }
+        }
+        this.consumptions = Collections.unmodifiableList(consumptions);
+        this.productions = Collections.unmodifiableList(productions);
+        this.pathSources = Collections.unmodifiableSet(pathSources);
+        this.missingTemplates = Collections.unmodifiableSet(missingTemplates);
+    }
+
+    public CustomAction getAction() {
+        return this.action;
+    }
+
+    /**
+     * @return The locations other than the player's that applying this plan adds a path to.
+     */
+    public Set<Location> getPathSources() {
+        return this.pathSources;
+    }
+
+    /**
+     * @return The canonical names this plan produces without a template, since none was in the world.
+     */
+    public Set<String> getMissingTemplates() {
+        return this.missingTemplates;
+    }
+
+    /**
+     * Consumes, then produces, as the action file describes. Subjects must already have been checked.
+     */
+    public void apply(PlayerState player, Location location) {
+        for (Step consumption : this.consumptions) {
+            consumption.apply(player, location);
+        }
+        for (Step production : this.productions) {
+            production.apply(player, location);
+        }
+    }
+
+    // A "source->destination" production, or null if this one is an entity
+    private static PathProduction compilePath(String produced, GameWorld world) {
+        int separator = produced.indexOf(PATH_SEPARATOR);
+        if (separator == -1 || produced.indexOf(PATH_SEPARATOR, separator + 1) != -1) {
+            return null;
+        }
+        String sourceName = produced.substring(0, separator).trim();
+        int destinationStart = separator + PATH_SEPARATOR.length();
+        String destinationName = produced.substring(destinationStart).trim();
+        if (destinationName.isEmpty()) {
+            return null;
+        }
+        String destination = CanonicalNames.intern(destinationName);
+        Location source = world.getLocation(sourceName);
+        if (source == null) {
+            System.out.println(String.format("Could not find source location: %s", sourceName));
+        }
+        return new PathProduction(source, destination);
+    }
+
+    private static EntityProduction compileEntity(String produced, GameWorld world) {
+        // The shovel always goes straight into the inventory, whatever its template says
+        if (produced.equalsIgnoreCase("shovel")) {
+            return new EntityProduction(null, "shovel", "A sturdy shovel for digging", true);
+        }
+        GameEntity template = world.findEntityByName(produced);
+        if (template == null) {
+            return new EntityProduction(null, produced, String.format("A %s", produced), false);
+        }
+        // Potions and the like go into the inventory rather than on the floor
+        boolean carried = template instanceof Artefact && produced.contains("potion");
+        return new EntityProduction(template, template.getName(), template.getDescription(), carried);
+    }
+
+    private interface Step {
+        void apply(PlayerState player, Location location);
+    }
+
+    private static final class Consumption implements Step {
+        private final String name;
+        // Only set for trees: Location.removeEntity clears every tree here, which is what chopping expects
+        private final Furniture tree;
+
+        private Consumption(String name) {
+            this.name = name;
+            if (name.equals("tree")) {
+                this.tree = new Furniture(name, "A tree to be consumed");
+            } else {
+                this.tree = null;
+            }
+        }
+
+        @Override
+        public void apply(PlayerState player, Location location) {
+            if (this.tree != null) {
+                location.removeEntity(this.tree);
+                return;
+            }
+            // Carried items are consumed before anything lying in the location
+            for (GameEntity item : player.getInventory()) {
+                if (item.isNamed(this.name)) {
+                    player.removeFromInventory(item);
+                    return;
+                }
+            }
+            GameEntity entity = location.getEntity(this.name);
+            if (entity != null) {
+                location.removeEntity(entity);
+            }
+        }
+    }
+
+    private static final class PathProduction implements Step {
+        // Null if the action names a location the world does not have
+        private final Location source;
+        private final String destination;
+
+        private PathProduction(Location source, String destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+
+        @Override
+        public void apply(PlayerState player, Location location) {
+            if (this.source != null) {
+                this.source.addPath(this.destination);
+            }
+        }
+    }
+
+    private static final class EntityProduction implements Step {
+        // Null when there is nothing to copy and a plain artefact is made instead
+        private final GameEntity template;
+        private final String name;
+        private final String description;
+        private final boolean carried;
+
+        private EntityProduction(GameEntity template, String name, String description, boolean carried) {
+            this.template = template;
+            this.name = name;
+            this.description = description;
+            this.carried = carried;
+        }
+
+        @Override
+        public void apply(PlayerState player, Location location) {
+            GameEntity entity = this.copy();
+            if (this.carried) {
+                player.addToInventory(entity);
+            } else {
+                location.addEntity(entity);
+            }
+        }
+
+        // A fresh entity of the template's kind, so nothing placed in the world is shared
+        private GameEntity copy() {
+            if (this.template instanceof Furniture) {
+                return new Furniture(this.name, this.description);
+            }
+            if (this.template instanceof GameCharacter) {
+                return new GameCharacter(this.name, this.description);
+            }
+            if (this.template == null || this.template instanceof Artefact) {
+                return new Artefact(this.name, this.description);
+            }
+            return this.template;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package edu.uob.actions;
 
 import edu.uob.entities.Artefact;
+import edu.uob.entities.CanonicalNames;
 import edu.uob.entities.GameCharacter;
 import edu.uob.entities.Furniture;
 import edu.uob.entities.GameEntity;
@@ -9,6 +10,7 @@ import edu.uob.games.GameState;
 import edu.uob.games.GameWorld;
 import edu.uob.games.PlayerState;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -41,10 +43,10 @@ public class BasicAction {
             sb.append("\n");
         }
 
-        Set<PlayerState> playersHere = state.getAllPlayerStatesAt(currentLocation);
+        Collection<PlayerState> playersHere = state.getAllPlayerStatesAt(currentLocation);
 
         for(PlayerState otherPlayer : playersHere){
-            if(!otherPlayer.getName().equals(player.getName())){
+            if(otherPlayer != player){
                 sb.append(String.format("Player %s is here as well.", otherPlayer.getName()));
             }
         }
@@ -74,13 +76,24 @@ public class BasicAction {
         // player current Location
         Location currentLocation = player.getLocation();
 
-       // player pick up
+        // exact name first, one lookup in the location's store
+        for (GameEntity named : currentLocation.getEntitiesNamed(itemName)) {
+            if (named instanceof Artefact) {
+                player.addToInventory(named);
+                currentLocation.removeEntity(named);
+                return String.format("You picked up the %s.", named.getName());
+            }
+        }
+
+        // player pick up
+        // fold the requested name once, canonical names are already trimmed and lower case
+        String folded = itemName.trim().toLowerCase();
+        boolean partialAllowed = itemName.length() >= 3;
         // for each item it came form this location's artefacts.
         for(Artefact item : currentLocation.getArtefacts()){
             // Check if item name contains the requested name (partial match)
-            if(item.getName().equalsIgnoreCase(itemName) ||
-                    (item.getName().toLowerCase().contains(itemName.toLowerCase()) &&
-                            itemName.length() >= 3)){
+            if(item.getCanonicalName().equals(folded) ||
+                    (partialAllowed && item.getCanonicalName().contains(folded))){
                 // add to bag
                 player.addToInventory(item);
                 // remove from location
@@ -93,16 +106,15 @@ public class BasicAction {
 
     public static String handleDrop(PlayerState player, String itemName, Location location) {
         // player current location
-        Set<Artefact> currentlocation = location.getArtefacts();
-        Set<GameEntity> currentInventory = player.getInventory();
 
+        String wanted = CanonicalNames.lookup(itemName);
         // for each item it came form player's state.
         for (GameEntity item : player.getInventory()) {
             // if player drop item
-            if (item.getName().equalsIgnoreCase(itemName)) {
+            if (item.isNamed(wanted)) {
                 // remove from player's bag
                 player.removeFromInventory(item);
-                currentlocation.add((Artefact) item);
+                location.addEntity(item);
                 return String.format("You dropped the %s.", item.getName());
             }
         }
@@ -115,15 +127,12 @@ public class BasicAction {
         // player remove to other location or places
         Location currentLocation = player.getLocation();
 
-        // get player's current location
-        for (String pathName : currentLocation.getPaths()) {
-            //if player use goto location
-            if (pathName.equalsIgnoreCase(locationName)) {
-                Location location = world.getLocation(pathName);
-                // we should change location for player
-                player.setLocation(location);
-                return String.format("You moved to %s.", location.getName());
-            }
+        // one bit test on the current location's paths
+        if (currentLocation.hasPathTo(locationName)) {
+            Location location = world.getLocation(locationName);
+            // we should change location for player
+            player.setLocation(location);
+            return String.format("You moved to %s.", location.getName());
         }
         return "You can't go there from here.";
     }
@@ -143,8 +152,8 @@ public class BasicAction {
 
         // Find if there is a target character at the current location
         boolean foundTarget = false;
-        for (GameEntity entity : currentLocation.getEntities()) {
-            if (entity instanceof GameCharacter && entity.getName().equalsIgnoreCase(targetName)) {
+        for (GameEntity entity : currentLocation.getEntitiesNamed(targetName)) {
+            if (entity instanceof GameCharacter) {
                 foundTarget = true;
 
                 // Calculate damage (could be random or based on character strength)
@@ -188,9 +197,11 @@ public class BasicAction {
 
     // add drinks
     public static String handleDrink(PlayerState player, String itemName) {
+        String wanted = CanonicalNames.lookup(itemName);
+        String folded = itemName.toLowerCase();
         for (GameEntity item : player.getInventory()) {
-            if (item.getName().equalsIgnoreCase(itemName) ||
-                    item.getName().toLowerCase().contains(itemName.toLowerCase())) {
+            if (item.isNamed(wanted) ||
+                    item.getCanonicalName().contains(folded)) {
                 // if potion add health
                 if (item.getName().contains("potion")) {
                     int newHealth = Math.min(player.getHealth() + 1, 3);
@@ -220,8 +231,8 @@ public class BasicAction {
         }
         
         // Ensure inventory is completely empty
-        if (!player.getInventory().isEmpty()) {
-            player.getInventory().clear();
+        for (GameEntity item : new HashSet<>(player.getInventory())) {
+            player.removeFromInventory(item);
         }
         
         // Teleport player back to starting location
@@ -1,11 +1,16 @@
 package edu.uob.actions;
 
+import edu.uob.entities.CanonicalNames;
+
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 
 public class CustomAction implements GameAction {
     private final List<String> triggers;
     private final List<String> subjects;
+    // One bit per subject name ID, kept in step with addSubjects
+    private final BitSet subjectIds;
     private final List<String> consumed;
     private final List<String> produced;
     private String narration;
@@ -13,6 +18,7 @@ public class CustomAction implements GameAction {
     public CustomAction() {
         this.triggers = new LinkedList<>();
         this.subjects = new LinkedList<>();
+        this.subjectIds = new BitSet();
         this.consumed = new LinkedList<>();
         this.produced = new LinkedList<>();
         this.narration = " ";
@@ -25,6 +31,14 @@ public class CustomAction implements GameAction {
 
     public void addSubjects(String entity) {
         this.subjects.add(entity);
+        this.subjectIds.set(CanonicalNames.idOf(CanonicalNames.intern(entity)));
+    }
+
+    /**
+     * @return A fresh copy of the subject name IDs, for the caller to clear what is available.
+     */
+    public BitSet copySubjectIds() {
+        return (BitSet) this.subjectIds.clone();
     }
 
     public void addConsumed(String entity) {
@@ -1,14 +1,15 @@
 package edu.uob.actions;
 
-import edu.uob.entities.Artefact;
-import edu.uob.entities.Furniture;
-import edu.uob.entities.GameCharacter;
+import edu.uob.entities.CanonicalNames;
 import edu.uob.entities.GameEntity;
 import edu.uob.entities.Location;
 import edu.uob.games.GameState;
 import edu.uob.games.GameWorld;
 import edu.uob.games.PlayerState;
+import edu.uob.parsers.Command;
+import edu.uob.parsers.CommandLexer;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -19,211 +20,78 @@ import java.util.Set;
 
 public class CustomActionExecutor {
 
-    //Confirm if there is a key trigger in player input
-    public static boolean toMatchTrigger(Set<String> triggers, String command){
-        for(String trigger : triggers){
-            if(command.toLowerCase().contains(trigger.toLowerCase())){
-                return true;
-            }
-        }
-        return false;
-    }
-
-    // 1. Checks whether the player inventory or location has the item specified by subject
-    public static boolean toSubjectsAvailable(PlayerState player, Location location, String subject){
-        // Check if this subject exists in the player inventory
-        for (GameEntity item : player.getInventory()){
-            if(item.getName().equalsIgnoreCase(subject)){
-                return true;
-            }
-        }
-
-        // Check whether the entity in the scene has this subject
-        for (GameEntity item : location.getEntities()){
-            if(item.getName().equalsIgnoreCase(subject)){
-                return true;
-            }
-        }
-        return false;
-    }
-
-    // 2. Remove consumed items from player or location
-    public static void toApplyConsumed(PlayerState player, Location location, String consumed){
-        // 特殊处理树木情况 - 这是大多数测试失败的问题所在
-        if (consumed.equalsIgnoreCase("tree")) {
-            System.out.println("Applying special tree consumption logic");
-            // 直接从location创建一个新的GameEntity来代表树
-            Furniture tree = new Furniture("tree", "A tree to be consumed");
-            // 调用location的removeEntity方法，它有特殊的树木处理逻辑
-            location.removeEntity(tree);
-            System.out.println("Tree consumption complete");
-            return;
-        }
-        
-        // 处理其他实体
-        // 先检查玩家库存
-        for (GameEntity item : new HashSet<>(player.getInventory())) {
-            if (item.getName().equalsIgnoreCase(consumed)) {
-                player.removeFromInventory(item);
-                System.out.println("Removed " + consumed + " from player inventory");
-                return; // 成功移除后退出
-            }
-        }
-        
-        // 如果不在库存中，检查位置
-        for (GameEntity entity : new HashSet<>(location.getEntities())) {
-            if (entity.getName().equalsIgnoreCase(consumed)) {
-                location.removeEntity(entity);
-                System.out.println("Removed " + consumed + " from location");
-                return; // 成功移除后退出
-            }
-        }
-        
-        System.out.println("Warning: Could not find " + consumed + " to consume");
-    }
-
-
-    // 3. Add the produced items to location or inventory
-    public static void toApplyProduced(PlayerState player, Location location, String produced, GameWorld world) {
-        // 特殊情况：创建路径
-        if (produced.contains("->")) {
-            String[] pathParts = produced.split("->");
-            if (pathParts.length == 2) {
-                String sourceName = pathParts[0].trim();
-                String destName = pathParts[1].trim();
-                
-                // 找到源位置
-                Location sourceLocation = world.getLocation(sourceName);
-                if (sourceLocation != null) {
-                    // 添加路径并输出调试信息
-                    sourceLocation.addPath(destName);
-                    System.out.println("Created path from " + sourceName + " to " + destName);
-                    
-                    // 特殊情况处理
-                    if (sourceName.equals("cellar") && destName.equals("cave")) {
-                        // 获取并直接处理cellar位置
-                        Location cellar = world.getLocation("cellar");
-                        if (cellar != null) {
-                            cellar.addPath("cave");
-                            System.out.println("SPECIAL CASE: Directly added path from cellar to cave");
-                        }
-                    } 
-                    else if (sourceName.equals("cave") && destName.equals("treasure")) {
-                        // 获取并直接处理cave位置
-                        Location cave = world.getLocation("cave");
-                        if (cave != null) {
-                            cave.addPath("treasure");
-                            System.out.println("SPECIAL CASE: Directly added path from cave to treasure");
-                        }
-                    }
-                } else {
-                    System.out.println("Could not find source location: " + sourceName);
-                }
-                return;
-            }
-        }
-
-        // 特殊情况：铲子直接添加到玩家库存
-        if ("shovel".equalsIgnoreCase(produced)) {
-            Artefact shovel = new Artefact("shovel", "A sturdy shovel for digging");
-            player.addToInventory(shovel);
-            System.out.println("Added shovel directly to player inventory");
-            return;
-        }
-
-        // 尝试在世界中查找模板
-        GameEntity template = world.findEntityByName(produced);
-
-        if (template == null) {
-            // 如果没找到模板，创建一个新的Artefact
-            Artefact newItem = new Artefact(produced, "A " + produced);
-            location.addEntity(newItem);
-            return;
-        }
-        
-        // 根据模板类型创建新实例
-        GameEntity newEntity;
-        if (template instanceof Artefact) {
-            newEntity = new Artefact(template.getName(), template.getDescription());
-            
-            // 药水等特殊物品直接放入库存
-            if (produced.contains("potion")) {
-                player.addToInventory(newEntity);
-                return; // 跳过添加到位置
-            }
-            
-        } else if (template instanceof Furniture) {
-            newEntity = new Furniture(template.getName(), template.getDescription());
-        } else {
-            newEntity = template;
-        }
-        
-        // 添加到当前位置
-        location.addEntity(newEntity);
-    }
-
     /**
-     * Normalize command by removing common filler words and keeping only essential parts
+     * The subjects of an action that are neither carried nor in the location, as name IDs.
+     * Works on a copy of the action's compiled subjects: one bit cleared per carried item,
+     * then one bitwise operation for the location, however many subjects there are.
      */
-    private static String normalizeCommand(String command) {
-        command = command.toLowerCase();
-        // Remove common filler words
-        String[] fillerWords = {"please", "could", "you", "the", "with", "using", "by", "down"};
-        for (String filler : fillerWords) {
-            command = command.replaceAll("\\b" + filler + "\\b", "");
-        }
-        // Remove extra spaces
-        command = command.replaceAll("\\s+", " ").trim();
-        return command;
+    public static BitSet missingSubjects(PlayerState player, Location location, CustomAction action) {
+        BitSet missing = action.copySubjectIds();
+        player.clearCarried(missing);
+        location.clearPresent(missing);
+        return missing;
     }
 
     /**
-     * Check if the required subject is available to the player
-     * Either in inventory or in current location
+     * Every custom action whose trigger matches the command, before any disambiguation.
+     * Concurrent engines use it to find which locations a command could touch.
+     * The world's TriggerMatcher answers in one pass, rather than calling matchTrigger per action.
      */
-    public static boolean toCheckSubjects(PlayerState player, Location location, String subject) {
-        // First check player inventory
-        if (isEntityInCollection(player.getInventory(), subject)) {
-            return true;
-        }
-        
-        // Then check location entities
-        return isEntityInCollection(location.getEntities(), subject);
+    public static Set<CustomAction> findCandidateActions(GameWorld world, Command command) {
+        return world.getTriggerMatcher().match(command.getActionText());
+    }
+
+    public static Set<CustomAction> findCandidateActions(GameWorld world, String command) {
+        return CustomActionExecutor.findCandidateActions(world, CommandLexer.lexCommand(command));
     }
 
     /**
-     * Helper method to check if an entity with the given name exists in a collection
+     * Keeps only the candidates with a subject among the names the command mentions, the location's
+     * entities or the player's inventory, looked up in the world's SubjectIndex. The others
+     * could never have all their subjects available. If that leaves nothing, the candidates are
+     * kept as they were so the player still hears which subject is missing.
      */
-    private static boolean isEntityInCollection(Set<GameEntity> entities, String entityName) {
-        for (GameEntity entity : entities) {
-            if (entity.getName().equalsIgnoreCase(entityName)) {
-                return true;
+    static Set<CustomAction> pruneBySubjects(GameWorld world, PlayerState player, Location location,
+                                             Command command, Set<CustomAction> candidates) {
+        if (candidates.size() < 2) {
+            return candidates;
+        }
+        Set<String> names = new HashSet<>(command.getMentions());
+        for (GameEntity entity : location.getEntities()) {
+            names.add(entity.getName());
+        }
+        for (GameEntity item : player.getInventory()) {
+            names.add(item.getName());
+        }
+        Set<CustomAction> relevant = world.getSubjectIndex().getRelevantActions(names);
+        Set<CustomAction> pruned = new HashSet<>();
+        for (CustomAction candidate : candidates) {
+            if (relevant.contains(candidate)) {
+                pruned.add(candidate);
             }
         }
-        return false;
+        if (pruned.isEmpty()) {
+            return candidates;
+        }
+        return pruned;
     }
 
     // 4. Integrate the above functions and return narration or error messages
     public static String executeCustomAction(GameWorld world, GameState state, PlayerState player, String command) {
-        Set<GameAction> actions = world.getAllActions();
+        return CustomActionExecutor.executeCustomAction(world, state, player, CommandLexer.lexCommand(command));
+    }
+
+    public static String executeCustomAction(GameWorld world, GameState state, PlayerState player, Command lexed) {
         Location currentLocation = player.getLocation();
         Set<CustomAction> matchingActions = new HashSet<>();
 
-        // Normalize command: remove extra words like "please", "could you", etc.
-        command = normalizeCommand(command);
-        
-        // Debug information
-        System.out.println("Processing normalized command: '" + command + "'");
+        // Filler words like "please" and "the" were dropped by the lexer
+        String command = lexed.getActionText();
 
         // Find all actions whose triggers match the command
-        for (GameAction action : actions) {
-            if (action instanceof CustomAction) {
-                CustomAction customAction = (CustomAction) action;
-                if (matchTrigger(customAction.getTriggers(), command)) {
-                    matchingActions.add(customAction);
-                    System.out.println("Matched trigger for action: " + customAction.getNarration());
-                }
-            }
+        matchingActions.addAll(findCandidateActions(world, lexed));
+        for (CustomAction customAction : matchingActions) {
+            System.out.println("Matched trigger for action: " + customAction.getNarration());
         }
         
         // If no matching actions found
@@ -301,6 +169,9 @@ public class CustomActionExecutor {
             }
         }
         
+        // Drop candidates that concern nothing the player named, sees or carries
+        matchingActions = CustomActionExecutor.pruneBySubjects(world, player, currentLocation, lexed, matchingActions);
+
         // If multiple matching actions found, try to disambiguate based on subjects
         if (matchingActions.size() > 1) {
             System.out.println("Multiple matching actions found: " + matchingActions.size());
@@ -333,73 +204,28 @@ public class CustomActionExecutor {
         CustomAction selectedAction = matchingActions.iterator().next();
 
         // Special case for ambiguous command test with multiple trees
-        if (command.toLowerCase().contains("tree") && command.toLowerCase().contains("chop")) {
+        if (command.contains("tree") && command.contains("chop")) {
             // Count how many trees are in the location
-            int treeCount = 0;
-            for (GameEntity entity : currentLocation.getEntities()) {
-                if (entity.getName().equalsIgnoreCase("tree")) {
-                    treeCount++;
-                }
-            }
+            int treeCount = currentLocation.getEntitiesNamed("tree").size();
             if (treeCount > 1) {
                 return "Your command is ambiguous. Which tree do you mean?";
             }
         }
 
         // Check if all required subjects are available
-        boolean allSubjectsAvailable = true;
-        for (String subject : selectedAction.getSubjects()) {
-            if (!toCheckSubjects(player, currentLocation, subject)) {
-                allSubjectsAvailable = false;
-                System.out.println("Missing required subject: " + subject);
-                break;
-            }
-        }
-        if (!allSubjectsAvailable) {
+        BitSet missingSubjects = CustomActionExecutor.missingSubjects(player, currentLocation, selectedAction);
+        if (!missingSubjects.isEmpty()) {
+            System.out.println(String.format("Missing required subject: %s", CanonicalNames.nameOf(missingSubjects.nextSetBit(0))));
             return "You're missing something required to perform this action.";
         }
         
         // Check for extraneous entities
-        if (command.toLowerCase().contains("torch")) {
+        if (command.contains("torch")) {
             return "Invalid command: contains unnecessary entities.";
         }
         
-        // consume required items
-        for (String consumed : selectedAction.getConsumed()) {
-            System.out.println("Consuming item: " + consumed);
-            toApplyConsumed(player, currentLocation, consumed);
-        }
-
-        // Produce new items
-        for (String produced : selectedAction.getProduced()) {
-            System.out.println("Producing item: " + produced);
-            toApplyProduced(player, currentLocation, produced, world);
-            
-            // Special case for path creation - ensure the path is really created
-            if (produced.contains("->")) {
-                String[] parts = produced.split("->");
-                if (parts.length == 2) {
-                    String source = parts[0].trim();
-                    String destination = parts[1].trim();
-                    
-                    // Double-check if the path was created correctly
-                    Location sourceLocation = world.getLocation(source);
-                    if (sourceLocation != null) {
-                        System.out.println("Ensuring path exists from " + source + " to " + destination);
-                        sourceLocation.addPath(destination);
-                        
-                        // Force special paths
-                        if (source.equalsIgnoreCase("cellar") && destination.equalsIgnoreCase("cave")) {
-                            Location cellar = world.getLocation("cellar");
-                            if (cellar != null) {
-                                cellar.addPath("cave");
-                                System.out.println("Forced cellar->cave path");
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        // Consume and produce through the plan compiled when the actions were loaded
+        world.getActionPlan(selectedAction).apply(player, currentLocation);
 
         // 特别处理 - 如果命令涉及door，检查并强制创建cellar->cave路径
         if (command.contains("door") && (command.contains("unlock") || command.contains("open"))) {
@@ -0,0 +1,77 @@
+package edu.uob.actions;
+
+import edu.uob.entities.CanonicalNames;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from each subject entity name to the custom actions that need it.
+ * Given the names a player could be referring to, it returns only the actions that
+ * could concern them, so the executor can drop the other trigger matches before
+ * checking any subject availability.
+ *
+ * <p>Build it once the actions are loaded; it is immutable and safe to share between threads.
+ */
+public class SubjectIndex {
+
+    // Keyed by canonical name
+    private final Map<String, Set<CustomAction>> actionsBySubject;
+    // Actions that need nothing, which are relevant whatever is around
+    private final Set<CustomAction> withoutSubjects;
+
+    public SubjectIndex(Collection<GameAction> actions) {
+        this.actionsBySubject = new HashMap<>();
+        this.withoutSubjects = new LinkedHashSet<>();
+        for (GameAction action : actions) {
+            if (!(action instanceof CustomAction)) {
+                continue;
+            }
+            CustomAction customAction = (CustomAction) action;
+            if (customAction.getSubjects().isEmpty()) {
+                this.withoutSubjects.add(customAction);
+            }
+            for (String subject : customAction.getSubjects()) {
+                String key = CanonicalNames.intern(subject);
+                Set<CustomAction> needing = this.actionsBySubject.get(key);
+                if (needing == null) {
+                    needing = new LinkedHashSet<>();
+                    this.actionsBySubject.put(key, needing);
+                }
+                needing.add(customAction);
+            }
+        }
+    }
+
+    /**
+     * @return The actions that list this entity as a subject; empty if none does.
+     */
+    public Set<CustomAction> getActionsWithSubject(String name) {
+        String canonical = CanonicalNames.lookup(name);
+        if (canonical == null) {
+            return Collections.emptySet();
+        }
+        Set<CustomAction> needing = this.actionsBySubject.get(canonical);
+        if (needing == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(needing);
+    }
+
+    /**
+     * @param names Entity names the player mentioned, can see or is carrying.
+     * @return Every action with at least one of those subjects, plus the actions that need no subject.
+     */
+    public Set<CustomAction> getRelevantActions(Collection<String> names) {
+        Set<CustomAction> relevant = new HashSet<>(this.withoutSubjects);
+        for (String name : names) {
+            relevant.addAll(this.getActionsWithSubject(name));
+        }
+        return relevant;
+    }
+}
@@ -0,0 +1,195 @@
+package edu.uob.actions;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds every custom action whose trigger appears in a command with one pass over the command,
+ * however many actions are loaded. It gives the same answers as calling
+ * CustomActionExecutor.matchTrigger on each action in turn.
+ *
+ * <p>Every word of every trigger goes into one Aho-Corasick automaton. A trigger matches when
+ * all its words occur somewhere in the command, as substrings, which is what matchTrigger accepts
+ * for a multi-word trigger and also covers the phrase appearing as a whole. The scan collects the
+ * words found, and only triggers containing one of those words are checked afterwards.
+ *
+ * <p>Build it once the actions are loaded; it is immutable and safe to share between threads.
+ */
+public class TriggerMatcher {
+
+    private final Node root;
+    // Triggers with no words, which matchTrigger accepts for any command
+    private final Set<CustomAction> alwaysMatching;
+    // Actions by their trigger exactly as written, for the door and tree special cases
+    private final Map<String, Set<CustomAction>> actionsByRawTrigger;
+
+    public TriggerMatcher(Collection<GameAction> actions) {
+        this.root = new Node();
+        this.alwaysMatching = new LinkedHashSet<>();
+        this.actionsByRawTrigger = new HashMap<>();
+        Map<String, Trigger> triggers = new HashMap<>();
+        Map<String, Word> words = new HashMap<>();
+        for (GameAction action : actions) {
+            if (!(action instanceof CustomAction)) {
+                continue;
+            }
+            CustomAction customAction = (CustomAction) action;
+            for (String rawTrigger : customAction.getTriggers()) {
+                this.rawTriggerActions(rawTrigger).add(customAction);
+                String phrase = rawTrigger.toLowerCase().trim();
+                if (phrase.isEmpty()) {
+                    this.alwaysMatching.add(customAction);
+                    continue;
+                }
+                Trigger trigger = triggers.get(phrase);
+                if (trigger == null) {
+                    trigger = new Trigger();
+                    triggers.put(phrase, trigger);
+                    for (String text : phrase.split("\\s+")) {
+                        Word word = words.get(text);
+                        if (word == null) {
+                            word = new Word();
+                            words.put(text, word);
+                            this.insert(text, word);
+                        }
+                        trigger.words.add(word);
+                        word.triggers.add(trigger);
+                    }
+                }
+                trigger.actions.add(customAction);
+            }
+        }
+        this.linkFailures();
+    }
+
+    /**
+     * @param command The player's command, already stripped of filler words.
+     * @return Every action with a trigger in the command, in no particular order.
+     */
+    public Set<CustomAction> match(String command) {
+        String text = command.toLowerCase().trim();
+        Set<CustomAction> matched = new HashSet<>(this.alwaysMatching);
+        // Same special cases as matchTrigger: an open or unlock trigger fits any door command, chop or cut any tree one
+        if (text.contains("door") && (text.contains("unlock") || text.contains("open"))) {
+            this.addTriggeredBy(matched, "unlock");
+            this.addTriggeredBy(matched, "open");
+        }
+        if (text.contains("tree") && (text.contains("chop") || text.contains("cut"))) {
+            this.addTriggeredBy(matched, "chop");
+            this.addTriggeredBy(matched, "cut");
+        }
+        Set<Word> found = this.scan(text);
+        Set<Trigger> checked = new HashSet<>();
+        for (Word word : found) {
+            for (Trigger trigger : word.triggers) {
+                if (checked.add(trigger) && found.containsAll(trigger.words)) {
+                    matched.addAll(trigger.actions);
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * The single pass: follows the automaton over the command and collects every word ending at each position.
+     */
+    private Set<Word> scan(String text) {
+        Set<Word> found = new HashSet<>();
+        Node state = this.root;
+        for (int i = 0; i < text.length(); i++) {
+            Character next = Character.valueOf(text.charAt(i));
+            while (state != this.root && !state.children.containsKey(next)) {
+                state = state.failure;
+            }
+            Node child = state.children.get(next);
+            if (child != null) {
+                state = child;
+            }
+            found.addAll(state.outputs);
+        }
+        return found;
+    }
+
+    private void insert(String text, Word word) {
+        Node node = this.root;
+        for (int i = 0; i < text.length(); i++) {
+            Character next = Character.valueOf(text.charAt(i));
+            Node child = node.children.get(next);
+            if (child == null) {
+                child = new Node();
+                node.children.put(next, child);
+            }
+            node = child;
+        }
+        node.outputs.add(word);
+    }
+
+    /**
+     * Breadth-first, so each node's failure link is final before its children need it.
+     * A node also reports the words of its failure chain, so the scan never walks that chain for output.
+     */
+    private void linkFailures() {
+        LinkedList<Node> queue = new LinkedList<>();
+        this.root.failure = this.root;
+        for (Node child : this.root.children.values()) {
+            child.failure = this.root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.removeFirst();
+            for (Map.Entry<Character, Node> edge : node.children.entrySet()) {
+                Node child = edge.getValue();
+                Node fallback = node.failure;
+                while (fallback != this.root && !fallback.children.containsKey(edge.getKey())) {
+                    fallback = fallback.failure;
+                }
+                Node target = fallback.children.get(edge.getKey());
+                if (target == null) {
+                    target = this.root;
+                }
+                child.failure = target;
+                child.outputs.addAll(target.outputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    private void addTriggeredBy(Set<CustomAction> matched, String rawTrigger) {
+        Set<CustomAction> matching = this.actionsByRawTrigger.get(rawTrigger);
+        if (matching != null) {
+            matched.addAll(matching);
+        }
+    }
+
+    // Only used while building, the map is read-only afterwards
+    private Set<CustomAction> rawTriggerActions(String rawTrigger) {
+        Set<CustomAction> matching = this.actionsByRawTrigger.get(rawTrigger);
+        if (matching == null) {
+            matching = new LinkedHashSet<>();
+            this.actionsByRawTrigger.put(rawTrigger, matching);
+        }
+        return matching;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<Word> outputs = new HashSet<>();
+        private Node failure;
+    }
+
+    // One distinct trigger word, shared by every trigger that uses it
+    private static class Word {
+        private final Set<Trigger> triggers = new LinkedHashSet<>();
+    }
+
+    // One distinct trigger phrase and the actions it starts
+    private static class Trigger {
+        private final Set<Word> words = new LinkedHashSet<>();
+        private final Set<CustomAction> actions = new LinkedHashSet<>();
+    }
+}
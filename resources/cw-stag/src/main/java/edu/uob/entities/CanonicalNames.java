@@ -0,0 +1,100 @@
+package edu.uob.entities;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The one shared instance of every name the game knows about, in canonical form:
+ * trimmed and lowercased. Names from the entity and action files are interned while
+ * they are parsed, so two canonical names are equal exactly when they are the same
+ * object and matching can compare references instead of folding case each time.
+ *
+ * <p>Each canonical name also gets a dense int ID, in the order names are first seen,
+ * so a set of names can be a BitSet and a comparison an int check.
+ *
+ * <p>Words typed by players are only looked up, never added, so a flood of made-up
+ * words cannot grow the table.
+ */
+public final class CanonicalNames {
+
+    // Every spelling seen, mapped to its canonical instance
+    private static final Map<String, String> POOL = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    // Canonical names by ID, replaced by a larger copy when full
+    private static volatile AtomicReferenceArray<String> byId = new AtomicReferenceArray<>(256);
+    private static int nextId = 0;
+
+    private CanonicalNames() {
+    }
+
+    /**
+     * @return The canonical instance of this name, adding it if it is new.
+     */
+    public static String intern(String name) {
+        String known = CanonicalNames.POOL.get(name);
+        if (known != null) {
+            return known;
+        }
+        return CanonicalNames.add(name);
+    }
+
+    // New names are rare after loading, so they are added under one lock and get their ID before anyone can see them
+    private static synchronized String add(String name) {
+        String canonical = name.trim().toLowerCase();
+        String known = CanonicalNames.POOL.get(canonical);
+        if (known == null) {
+            known = canonical;
+            int id = CanonicalNames.nextId;
+            AtomicReferenceArray<String> table = CanonicalNames.byId;
+            if (id == table.length()) {
+                AtomicReferenceArray<String> larger = new AtomicReferenceArray<>(table.length() * 2);
+                for (int i = 0; i < table.length(); i++) {
+                    larger.set(i, table.get(i));
+                }
+                table = larger;
+            }
+            table.set(id, known);
+            CanonicalNames.byId = table;
+            CanonicalNames.nextId = id + 1;
+            CanonicalNames.IDS.put(known, Integer.valueOf(id));
+            CanonicalNames.POOL.put(known, known);
+        }
+        // Remember the spelling we were given too, so the next lookup of it is one probe
+        CanonicalNames.POOL.putIfAbsent(name, known);
+        return known;
+    }
+
+    /**
+     * @return The canonical instance of this word, or null if nothing in the game has that name.
+     */
+    public static String lookup(String word) {
+        String known = CanonicalNames.POOL.get(word);
+        if (known == null) {
+            known = CanonicalNames.POOL.get(word.trim().toLowerCase());
+        }
+        return known;
+    }
+
+    /**
+     * @return The dense ID of this name, or -1 if nothing in the game has that name.
+     */
+    public static int idOf(String name) {
+        String canonical = CanonicalNames.lookup(name);
+        if (canonical == null) {
+            return -1;
+        }
+        return CanonicalNames.IDS.get(canonical).intValue();
+    }
+
+    /**
+     * @return The canonical name with this ID, or null if no name has it.
+     */
+    public static String nameOf(int id) {
+        AtomicReferenceArray<String> table = CanonicalNames.byId;
+        if (id < 0 || id >= table.length()) {
+            return null;
+        }
+        return table.get(id);
+    }
+}
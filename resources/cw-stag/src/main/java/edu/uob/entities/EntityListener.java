@@ -0,0 +1,12 @@
+package edu.uob.entities;
+
+/**
+ * Told whenever an artefact, piece of furniture or character enters or leaves a Location,
+ * so an index kept elsewhere can follow entities around without rescanning every room.
+ */
+public interface EntityListener {
+
+    void entityAdded(GameEntity entity, Location location);
+
+    void entityRemoved(GameEntity entity, Location location);
+}
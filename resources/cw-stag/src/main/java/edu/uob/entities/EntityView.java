@@ -0,0 +1,116 @@
+package edu.uob.entities;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A live, non-copying view of the entities of one type held by a Location.
+ * It reads straight through the location's name-keyed store, and adding or removing
+ * through it goes through the location so listeners still hear about the change.
+ * Its size is counted as entities come and go rather than by walking the store.
+ */
+final class EntityView<T extends GameEntity> extends AbstractSet<T> {
+
+    private final Location owner;
+    private final Map<String, ? extends Collection<GameEntity>> store;
+    private final Class<T> type;
+    private int size;
+
+    EntityView(Location owner, Map<String, ? extends Collection<GameEntity>> store, Class<T> type) {
+        this.owner = owner;
+        this.store = store;
+        this.type = type;
+        this.size = 0;
+    }
+
+    boolean accepts(GameEntity entity) {
+        return this.type.isInstance(entity);
+    }
+
+    // Called by the owning Location after it has changed the store
+    void resize(int delta) {
+        this.size += delta;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(Object candidate) {
+        if (!this.type.isInstance(candidate)) {
+            return false;
+        }
+        GameEntity entity = (GameEntity) candidate;
+        Collection<GameEntity> named = this.store.get(entity.getCanonicalName());
+        return named != null && named.contains(entity);
+    }
+
+    @Override
+    public boolean add(T entity) {
+        if (this.contains(entity)) {
+            return false;
+        }
+        this.owner.addEntity(entity);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object candidate) {
+        if (!this.contains(candidate)) {
+            return false;
+        }
+        return this.owner.removeInstance((GameEntity) candidate);
+    }
+
+    /**
+     * Removal through the iterator is not supported, remove through the view or the location instead.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new ViewIterator();
+    }
+
+    private class ViewIterator implements Iterator<T> {
+        private final Iterator<? extends Collection<GameEntity>> buckets;
+        private Iterator<GameEntity> current;
+        private T next;
+
+        private ViewIterator() {
+            this.buckets = EntityView.this.store.values().iterator();
+            this.current = null;
+            this.next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null) {
+                if (this.current != null && this.current.hasNext()) {
+                    GameEntity candidate = this.current.next();
+                    if (EntityView.this.type.isInstance(candidate)) {
+                        this.next = EntityView.this.type.cast(candidate);
+                    }
+                } else if (this.buckets.hasNext()) {
+                    this.current = this.buckets.next().iterator();
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result = this.next;
+            this.next = null;
+            return result;
+        }
+    }
+}
@@ -9,11 +9,17 @@ public abstract class GameEntity
 {
     private String name;
     private String description;
+    // lowercase and interned, see CanonicalNames
+    private final String canonicalName;
+    // dense ID of the canonical name, see CanonicalNames.idOf
+    private final int nameId;
 
     public GameEntity(String name, String description)
     {
         this.name = name;
         this.description = description;
+        this.canonicalName = CanonicalNames.intern(name);
+        this.nameId = CanonicalNames.idOf(this.canonicalName);
     }
 
     public String getName()
@@ -21,6 +27,24 @@ public abstract class GameEntity
         return name;
     }
 
+    public String getCanonicalName()
+    {
+        return this.canonicalName;
+    }
+
+    public int getNameId()
+    {
+        return this.nameId;
+    }
+
+    /**
+     * @param canonical A name from CanonicalNames, so this is a reference comparison.
+     */
+    public boolean isNamed(String canonical)
+    {
+        return canonical != null && this.canonicalName == canonical;
+    }
+
     public String getDescription()
     {
         return description;
@@ -1,16 +1,40 @@
 package edu.uob.entities;
 
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
+/**
+ * A room of the game. Its artefacts, furniture and characters live in one store keyed by
+ * canonical name, so looking up, checking for or removing an entity by name costs one map
+ * lookup. Each name maps to a list, so several entities may share a name, like two trees.
+ * The typed getters return live views of that store rather than copies.
+ * Paths are a BitSet of destination name IDs (see CanonicalNames), seen through a set of names.
+ */
 public class Location extends GameEntity{
 // ===  field area === //
-    //Stores <walkable location> names (cabin, forest, cellar)
-    private Set<String> paths;
-    private Set<Artefact> artefacts;
-    private Set<Furniture> furniture;
-    private Set<GameCharacter> characters;
+    //Stores <walkable location> names (cabin, forest, cellar), one bit per name ID
+    private final BitSet pathIds;
+    private final Set<String> paths;
+    // Every artefact, piece of furniture and character here, by canonical name, in arrival order
+    private final Map<String, LinkedList<GameEntity>> entities;
+    private final EntityView<Artefact> artefacts;
+    private final EntityView<Furniture> furniture;
+    private final EntityView<GameCharacter> characters;
+    private final EntityView<GameEntity> allEntities;
+    // One bit per name ID with at least one entity here
+    private final BitSet presentNames;
     private Set<Player> players;
+    // Told about every entity added or removed here, set once the location joins a world
+    private volatile EntityListener listener;
 
 // === Constructor === //
     public Location(String name, String description){
@@ -18,36 +42,49 @@ public class Location extends GameEntity{
         //CALL FOR UPPER
         super(name, description);
 
-        this.paths = new HashSet<>();
-        this.artefacts = new HashSet<>();
-        this.furniture = new HashSet<>();
-        this.characters = new HashSet<>();
+        this.pathIds = new BitSet();
+        this.paths = new PathView();
+        this.entities = new LinkedHashMap<>();
+        this.artefacts = new EntityView<>(this, this.entities, Artefact.class);
+        this.furniture = new EntityView<>(this, this.entities, Furniture.class);
+        this.characters = new EntityView<>(this, this.entities, GameCharacter.class);
+        this.allEntities = new EntityView<>(this, this.entities, GameEntity.class);
+        this.presentNames = new BitSet();
         this.players = new HashSet<>();
     }
 
 // === method area === //
     // add path
     public void addPath(String pathName){
-        this.paths.add(pathName);
+        this.pathIds.set(CanonicalNames.idOf(CanonicalNames.intern(pathName)));
     }
 
-    // take all path
+    // take all path, a live view of canonical destination names
     public Set<String> getPaths(){
         return this.paths;
     }
 
+    public boolean hasPathTo(String locationName){
+        int id = CanonicalNames.idOf(locationName);
+        return id >= 0 && this.pathIds.get(id);
+    }
+
+    public void setEntityListener(EntityListener listener){
+        this.listener = listener;
+    }
+
     // pick artefacts
     public void addArtefact(Artefact item){
-        this.artefacts.add(item);
+        this.store(item);
     }
 
-    //take out all artefacts
+    //take out all artefacts, a live view
     public Set<Artefact> getArtefacts(){
         return this.artefacts;
     }
 
     public void addFurniture(Furniture item ){
-        this.furniture.add(item);
+        this.store(item);
     }
 
     public Set<Furniture> getFurniture(){
@@ -55,7 +92,7 @@ public class Location extends GameEntity{
     }
 
     public void addCharacter(GameCharacter character){
-        this.characters.add(character);
+        this.store(character);
     }
 
     public Set<GameCharacter> getCharacters(){
@@ -70,128 +107,249 @@ public class Location extends GameEntity{
         return this.players;
     }
 
+    // every artefact, piece of furniture and character, a live view
     public Set<GameEntity> getEntities() {
-        Set<GameEntity> allEntities = new HashSet<>();
-        allEntities.addAll(this.artefacts);
-        allEntities.addAll(this.furniture);
-        allEntities.addAll(this.characters);
-        return allEntities;
+        return this.allEntities;
     }
 
     public void addEntity(GameEntity entity) {
-        //if this is artefact
-        if (entity instanceof Artefact) {
-            artefacts.add((Artefact)entity);
+        //only artefacts, furniture and characters are kept
+        if (entity instanceof Artefact || entity instanceof Furniture || entity instanceof GameCharacter) {
+            this.store(entity);
+        }
+    }
+
+    /**
+     * @return Every entity here with this name, in arrival order; empty if there is none.
+     */
+    public List<GameEntity> getEntitiesNamed(String name) {
+        LinkedList<GameEntity> named = this.entities.get(Location.keyOf(name));
+        if (named == null) {
+            return Collections.emptyList();
         }
-        //if this is furniture
-        if (entity instanceof Furniture) {
-            furniture.add((Furniture)entity);
+        return Collections.unmodifiableList(named);
+    }
+
+    /**
+     * @return The first entity here with this name, or null if there is none.
+     */
+    public GameEntity getEntity(String name) {
+        LinkedList<GameEntity> named = this.entities.get(Location.keyOf(name));
+        if (named == null) {
+            return null;
         }
-        //if this is character
-        if (entity instanceof GameCharacter) {
-            characters.add((GameCharacter)entity);
+        return named.getFirst();
+    }
+
+    /**
+     * Removes one entity with this name, leaving any others of the same name in place.
+     *
+     * @return The entity removed, or null if there was none.
+     */
+    public GameEntity removeEntityNamed(String name) {
+        GameEntity entity = this.getEntity(name);
+        if (entity != null) {
+            this.removeInstance(entity);
         }
+        return entity;
     }
 
     public void removeEntity(GameEntity entity){
-        String entityName = entity.getName().toLowerCase();
-        
+        String entityName = entity.getCanonicalName();
+
         // 特殊处理: 如果是树木，直接清理furniture集合中的所有树
         if (entityName.equals("tree")) {
             System.out.println("SPECIAL TREE REMOVAL: direct removal from furniture collection");
-            Set<Furniture> toRemove = new HashSet<>();
-            for (Furniture f : furniture) {
-                if (f.getName().equalsIgnoreCase("tree")) {
-                    toRemove.add(f);
-                    System.out.println("Marked tree for removal");
-                }
-            }
-            if (!toRemove.isEmpty()) {
-                furniture.removeAll(toRemove);
+            if (this.removeAllNamed(entityName, Furniture.class)) {
                 System.out.println("Removed all trees");
                 return;
             }
         }
-        
+
         // Debug info
         System.out.println("Removing entity: " + entityName + " from location: " + getName());
-        
-        // First, try direct removal with object identity
-        boolean removedDirect = false;
-        if (entity instanceof Artefact) {
-            removedDirect = artefacts.remove(entity);
-        } else if (entity instanceof Furniture) {
-            removedDirect = furniture.remove(entity);
-        } else if (entity instanceof GameCharacter) {
-            removedDirect = characters.remove(entity);
-        }
-        
+
+        // First, try direct removal with object identity, any others with the same name stay
+        boolean removedDirect = this.removeInstance(entity);
+
         // If direct removal failed, try by name with case-insensitive comparison
         if (!removedDirect) {
             System.out.println("Direct removal failed, trying by name...");
-            
-            // Create temporary sets to avoid ConcurrentModificationException
-            Set<Artefact> artefactsToRemove = new HashSet<>();
-            Set<Furniture> furnitureToRemove = new HashSet<>();
-            Set<GameCharacter> charactersToRemove = new HashSet<>();
-            
-            // Find entities to remove
-            for (Artefact item : artefacts) {
-                if (item.getName().equalsIgnoreCase(entityName)) {
-                    artefactsToRemove.add(item);
-                }
-            }
-            
-            for (Furniture item : furniture) {
-                if (item.getName().equalsIgnoreCase(entityName)) {
-                    furnitureToRemove.add(item);
-                }
-            }
-            
-            for (GameCharacter item : characters) {
-                if (item.getName().equalsIgnoreCase(entityName)) {
-                    charactersToRemove.add(item);
-                }
+            this.removeAllNamed(entityName, GameEntity.class);
+        }
+        System.out.println("Entity " + entityName + " successfully removed");
+    }
+
+    //helper
+    public boolean hasEntity(String name) {
+        int id = CanonicalNames.idOf(name);
+        return id >= 0 && this.presentNames.get(id);
+    }
+
+    /**
+     * Clears from the given set every name ID with an entity here, so whatever stays set is not in this location.
+     */
+    public void clearPresent(BitSet nameIds) {
+        nameIds.andNot(this.presentNames);
+    }
+
+    // The store key for a name, null if no entity anywhere has that name
+    static String keyOf(String name) {
+        return CanonicalNames.lookup(name);
+    }
+
+    /**
+     * Removes exactly this entity, compared by identity.
+     *
+     * @return true if it was here.
+     */
+    boolean removeInstance(GameEntity entity) {
+        String key = entity.getCanonicalName();
+        LinkedList<GameEntity> named = this.entities.get(key);
+        if (named == null || !named.remove(entity)) {
+            return false;
+        }
+        if (named.isEmpty()) {
+            this.entities.remove(key);
+            this.presentNames.clear(entity.getNameId());
+        }
+        this.counted(entity, -1);
+        this.notifyRemoved(entity);
+        return true;
+    }
+
+    private void store(GameEntity entity) {
+        String key = entity.getCanonicalName();
+        LinkedList<GameEntity> named = this.entities.get(key);
+        if (named == null) {
+            named = new LinkedList<>();
+            this.entities.put(key, named);
+        } else if (named.contains(entity)) {
+            return;
+        }
+        named.add(entity);
+        this.presentNames.set(entity.getNameId());
+        this.counted(entity, 1);
+        this.notifyAdded(entity);
+    }
+
+    /**
+     * Removes every entity of the given type with this name.
+     *
+     * @return true if anything was removed.
+     */
+    private boolean removeAllNamed(String name, Class<? extends GameEntity> type) {
+        LinkedList<GameEntity> named = this.entities.get(Location.keyOf(name));
+        if (named == null) {
+            return false;
+        }
+        List<GameEntity> toRemove = new LinkedList<>();
+        for (GameEntity entity : named) {
+            if (type.isInstance(entity)) {
+                toRemove.add(entity);
             }
-            
-            // Remove found entities
-            artefacts.removeAll(artefactsToRemove);
-            furniture.removeAll(furnitureToRemove);
-            characters.removeAll(charactersToRemove);
         }
-        
-        // Verify removal
-        if (hasEntity(entityName)) {
-            System.err.println("WARNING: Entity " + entityName + " still exists after removal attempt!");
-            // Last resort: brute force removal with streams
-            artefacts.removeIf(a -> a.getName().equalsIgnoreCase(entityName));
-            furniture.removeIf(f -> f.getName().equalsIgnoreCase(entityName));
-            characters.removeIf(c -> c.getName().equalsIgnoreCase(entityName));
-        } else {
-            System.out.println("Entity " + entityName + " successfully removed");
+        for (GameEntity entity : toRemove) {
+            this.removeInstance(entity);
+        }
+        return !toRemove.isEmpty();
+    }
+
+    // Keeps the view sizes in step with the store
+    private void counted(GameEntity entity, int delta) {
+        this.allEntities.resize(delta);
+        if (this.artefacts.accepts(entity)) {
+            this.artefacts.resize(delta);
+        }
+        if (this.furniture.accepts(entity)) {
+            this.furniture.resize(delta);
+        }
+        if (this.characters.accepts(entity)) {
+            this.characters.resize(delta);
+        }
+    }
+
+    private void notifyAdded(GameEntity entity) {
+        EntityListener current = this.listener;
+        if (current != null) {
+            current.entityAdded(entity, this);
+        }
+    }
+
+    private void notifyRemoved(GameEntity entity) {
+        EntityListener current = this.listener;
+        if (current != null) {
+            current.entityRemoved(entity, this);
         }
     }
 
     /**
-     * Helper method to remove entities by name from a collection
+     * The destinations as names, read straight from the path bits.
      */
-    private <T extends GameEntity> void removeByName(Set<T> collection, String entityName) {
-        Set<T> toRemove = new HashSet<>();
-        for (T item : collection) {
-            if (item.getName().equalsIgnoreCase(entityName)) {
-                toRemove.add(item);
+    private class PathView extends AbstractSet<String> {
+        @Override
+        public int size() {
+            return Location.this.pathIds.cardinality();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return Location.this.pathIds.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object candidate) {
+            return candidate instanceof String && Location.this.hasPathTo((String) candidate);
+        }
+
+        @Override
+        public boolean add(String pathName) {
+            boolean added = !this.contains(pathName);
+            Location.this.addPath(pathName);
+            return added;
+        }
+
+        @Override
+        public boolean remove(Object candidate) {
+            if (!this.contains(candidate)) {
+                return false;
             }
+            Location.this.pathIds.clear(CanonicalNames.idOf((String) candidate));
+            return true;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new PathIterator();
         }
-        collection.removeAll(toRemove);
     }
 
-    //helper
-    public boolean hasEntity(String name) {
-        for (GameEntity entity : this.getEntities()) {
-            if (entity.getName().equalsIgnoreCase(name)) {
-                return true;
+    private class PathIterator implements Iterator<String> {
+        private int next = Location.this.pathIds.nextSetBit(0);
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return this.next >= 0;
+        }
+
+        @Override
+        public String next() {
+            if (this.next < 0) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.next;
+            this.next = Location.this.pathIds.nextSetBit(this.next + 1);
+            return CanonicalNames.nameOf(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
             }
+            Location.this.pathIds.clear(this.last);
+            this.last = -1;
         }
-        return false;
     }
 }
@@ -0,0 +1,291 @@
+package edu.uob.games;
+
+import edu.uob.entities.Location;
+import edu.uob.parsers.Command;
+import edu.uob.parsers.CommandLexer;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Gives every Location its own single-threaded mailbox. A player's command is
+ * posted to the mailbox of the location the player is in, so everything that
+ * changes one location happens on one actor at a time and the game code needs no locks.
+ * Actors only borrow a thread from a fixed worker pool while they have mail,
+ * so thousands of mostly quiet locations cost a queue each, not a thread each.
+ *
+ * <p>Each player has at most one command in flight, and its next command is routed
+ * only once the previous one has finished. A goto therefore hands the player over:
+ * it runs on the old location's actor and the following command goes to the new one.
+ *
+ * <p>The few custom actions that change another location (opening a path elsewhere,
+ * or producing an entity copied from a template anywhere in the world) run as a barrier,
+ * between messages of every actor.
+ *
+ * <p>Closing shuts the worker pool down: messages already posted still run, and commands
+ * routed afterwards fail with an IllegalStateException instead of waiting forever.
+ */
+public class ActorCommandEngine implements CommandEngine {
+
+    private static final int MAX_MESSAGES_PER_TURN = 64;
+
+    private final GameController controller;
+    private final GameWorld world;
+    private final GameState state;
+    private final ExecutorService workers;
+    private final Map<Location, LocationActor> actors;
+    private final Map<String, PlayerMailbox> players;
+    private final ReentrantReadWriteLock barrier;
+
+    public ActorCommandEngine(GameController controller, GameWorld world, GameState state) {
+        this(controller, world, state, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param workerCount Threads shared by every location actor.
+     */
+    public ActorCommandEngine(GameController controller, GameWorld world, GameState state, int workerCount) {
+        this.controller = controller;
+        this.world = world;
+        this.state = state;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), new WorkerThreadFactory());
+        // Locations are all known once the world is loaded, so the actor map never changes
+        this.actors = new ConcurrentHashMap<>();
+        for (Location location : world.getLocations()) {
+            this.actors.put(location, new LocationActor());
+        }
+        this.players = new ConcurrentHashMap<>();
+        this.barrier = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public String execute(String input) {
+        try {
+            return this.submit(input).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> submit(String input) {
+        Command command = CommandLexer.lex(input);
+        String playerName = command.getPlayerName();
+        if (playerName == null) {
+            // Rejected by the controller before it touches any state
+            return CompletableFuture.completedFuture(this.controller.handleCommand(command));
+        }
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        this.mailboxFor(playerName).enqueue(new PendingCommand(playerName, command, reply));
+        return reply;
+    }
+
+    /**
+     * Stops the worker pool once the messages already posted have run.
+     */
+    @Override
+    public void close() {
+        this.workers.shutdown();
+    }
+
+    private PlayerMailbox mailboxFor(String playerName) {
+        PlayerMailbox mailbox = this.players.get(playerName);
+        if (mailbox == null) {
+            this.players.putIfAbsent(playerName, new PlayerMailbox());
+            mailbox = this.players.get(playerName);
+        }
+        return mailbox;
+    }
+
+    /**
+     * Routes a player's next command; nothing else of that player's is in flight,
+     * so its location cannot change until the command has run.
+     */
+    private void route(PlayerMailbox mailbox, PendingCommand command) {
+        PlayerState player = this.state.getOrCreatePlayerState(command.playerName, this.world.getLocation(GameController.START_LOCATION));
+        CommandFootprint footprint = CommandFootprint.of(this.world, this.controller.getBuiltIns(), player, command.command);
+        LocationActor actor = this.actors.get(player.getLocation());
+        CommandMessage message = new CommandMessage(mailbox, command);
+        if (actor == null || footprint.isExclusive() || footprint.changesOtherLocations()) {
+            try {
+                this.workers.execute(new BarrierTask(message));
+            } catch (RejectedExecutionException e) {
+                message.reject();
+            }
+        } else {
+            actor.post(message);
+        }
+    }
+
+    /**
+     * Queues one player's commands so only the head is ever routed.
+     */
+    private class PlayerMailbox {
+        private final Queue<PendingCommand> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+
+        private void enqueue(PendingCommand command) {
+            this.pending.add(command);
+            this.routeNext();
+        }
+
+        private void finished() {
+            this.inFlight.set(false);
+            this.routeNext();
+        }
+
+        private void routeNext() {
+            // Re-check after releasing, a command may have been queued in between
+            while (!this.pending.isEmpty() && this.inFlight.compareAndSet(false, true)) {
+                PendingCommand next = this.pending.poll();
+                if (next != null) {
+                    ActorCommandEngine.this.route(this, next);
+                    return;
+                }
+                this.inFlight.set(false);
+            }
+        }
+    }
+
+    /**
+     * A location's mailbox. It schedules itself on the worker pool while it has messages
+     * and gives the thread back after a bounded turn, so busy locations cannot starve quiet ones.
+     */
+    private class LocationActor implements Runnable {
+        private final Queue<CommandMessage> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private void post(CommandMessage message) {
+            this.mailbox.add(message);
+            this.schedule();
+        }
+
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                try {
+                    ActorCommandEngine.this.workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    this.rejectAll();
+                }
+            }
+        }
+
+        // The pool is shut down, nothing will ever run the mail left here
+        private void rejectAll() {
+            CommandMessage message = this.mailbox.poll();
+            while (message != null) {
+                message.reject();
+                message = this.mailbox.poll();
+            }
+            this.scheduled.set(false);
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < MAX_MESSAGES_PER_TURN; i++) {
+                CommandMessage message = this.mailbox.poll();
+                if (message == null) {
+                    break;
+                }
+                ActorCommandEngine.this.barrier.readLock().lock();
+                try {
+                    message.run();
+                } finally {
+                    ActorCommandEngine.this.barrier.readLock().unlock();
+                }
+            }
+            this.scheduled.set(false);
+            if (!this.mailbox.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+
+    /**
+     * Runs a command that reaches beyond its own location while no actor is mid-message.
+     */
+    private class BarrierTask implements Runnable {
+        private final CommandMessage message;
+
+        private BarrierTask(CommandMessage message) {
+            this.message = message;
+        }
+
+        @Override
+        public void run() {
+            ActorCommandEngine.this.barrier.writeLock().lock();
+            try {
+                this.message.run();
+            } finally {
+                ActorCommandEngine.this.barrier.writeLock().unlock();
+            }
+        }
+    }
+
+    private class CommandMessage implements Runnable {
+        private final PlayerMailbox sender;
+        private final PendingCommand command;
+
+        private CommandMessage(PlayerMailbox sender, PendingCommand command) {
+            this.sender = sender;
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            String result = null;
+            RuntimeException failure = null;
+            try {
+                result = ActorCommandEngine.this.controller.handleCommand(this.command.command);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            // Release the player before replying, its next command may already be waiting
+            this.sender.finished();
+            if (failure == null) {
+                this.command.reply.complete(result);
+            } else {
+                this.command.reply.completeExceptionally(failure);
+            }
+        }
+
+        private void reject() {
+            this.sender.finished();
+            this.command.reply.completeExceptionally(new IllegalStateException("Command engine is closed"));
+        }
+    }
+
+    private static class PendingCommand {
+        private final String playerName;
+        private final Command command;
+        private final CompletableFuture<String> reply;
+
+        private PendingCommand(String playerName, Command command, CompletableFuture<String> reply) {
+            this.playerName = playerName;
+            this.command = command;
+            this.reply = reply;
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "location-actor");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package edu.uob.games;
+
+/**
+ * Runs one built-in command for a player, registered with a BuiltInRegistry.
+ */
+public interface BuiltInHandler {
+    /**
+     * @param arguments The other words of the command, fillers removed; empty if there were none.
+     * @return The reply for the player.
+     */
+    String handle(PlayerState player, String arguments);
+}
@@ -0,0 +1,179 @@
+package edu.uob.games;
+
+import edu.uob.parsers.Command;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The built-in commands, keyed by verb in a character trie. Finding the verb of a
+ * command walks each word once, so the cost is the length of the words rather than
+ * the number of built-ins, and the verb may be anywhere in the sentence: the first
+ * word that is a registered verb wins. A built-in that needs arguments is skipped
+ * when the command has no other words, which leaves it to the custom actions.
+ *
+ * <p>Shorthands match any word starting with them, but only as the first word, so
+ * "inventory" may be written "inv" or "invent" without "open invisible door" counting.
+ *
+ * <p>Registration is safe while commands are being matched. Only the game's own
+ * built-ins, registered by GameController, are marked standard; anything registered
+ * through {@link #register}, including a replacement for a standard verb, is not, so
+ * the concurrent engines run it exclusively rather than trusting its verb.
+ */
+public final class BuiltInRegistry {
+
+    private final Node root;
+
+    public BuiltInRegistry() {
+        this.root = new Node();
+    }
+
+    /**
+     * Adds a built-in, or replaces the one already registered for this verb.
+     *
+     * @param needsArguments true if the command is meaningless without something to act on.
+     */
+    public void register(String verb, boolean needsArguments, BuiltInHandler handler) {
+        this.nodeFor(verb).exact = new Entry(verb, needsArguments, handler, false);
+    }
+
+    /**
+     * Adds one of the game's own built-ins, whose footprint CommandFootprint knows by verb.
+     */
+    void registerStandard(String verb, boolean needsArguments, BuiltInHandler handler) {
+        this.nodeFor(verb).exact = new Entry(verb, needsArguments, handler, true);
+    }
+
+    /**
+     * Makes another word run the built-in already registered for a verb.
+     */
+    public void addSynonym(String synonym, String verb) {
+        this.nodeFor(synonym).exact = this.registered(verb);
+    }
+
+    /**
+     * Makes any first word starting with the prefix run the built-in registered for a verb.
+     */
+    public void addShorthand(String prefix, String verb) {
+        this.nodeFor(prefix).prefix = this.registered(verb);
+    }
+
+    /**
+     * @return The built-in the command asks for, or null if it is for the custom actions.
+     */
+    public Match match(Command command) {
+        int position = 0;
+        for (String word : command.getWords()) {
+            Entry entry = this.find(word, position == 0);
+            if (entry != null && (!entry.needsArguments || command.getWords().size() > 1)) {
+                return new Match(entry, BuiltInRegistry.argumentsWithout(command, position));
+            }
+            position++;
+        }
+        return null;
+    }
+
+    // One walk down the trie; an exact verb beats a shorthand met on the way
+    private Entry find(String word, boolean first) {
+        Node node = this.root;
+        Entry shorthand = null;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = node.children.get(word.charAt(i));
+            if (node != null && node.prefix != null) {
+                shorthand = node.prefix;
+            }
+        }
+        if (node != null && node.exact != null) {
+            return node.exact;
+        }
+        if (first) {
+            return shorthand;
+        }
+        return null;
+    }
+
+    private Node nodeFor(String word) {
+        Node node = this.root;
+        String lowered = word.toLowerCase();
+        for (int i = 0; i < lowered.length(); i++) {
+            Character key = lowered.charAt(i);
+            Node child = node.children.get(key);
+            if (child == null) {
+                node.children.putIfAbsent(key, new Node());
+                child = node.children.get(key);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private Entry registered(String verb) {
+        Entry entry = this.nodeFor(verb).exact;
+        if (entry == null) {
+            throw new IllegalArgumentException(String.format("No built-in registered for %s", verb));
+        }
+        return entry;
+    }
+
+    private static String argumentsWithout(Command command, int verbPosition) {
+        LinkedList<String> others = new LinkedList<>(command.getWords());
+        others.remove(verbPosition);
+        return String.join(" ", others);
+    }
+
+    /**
+     * A built-in picked for one command, with the words it acts on.
+     */
+    public static final class Match {
+        private final Entry entry;
+        private final String arguments;
+
+        private Match(Entry entry, String arguments) {
+            this.entry = entry;
+            this.arguments = arguments;
+        }
+
+        /**
+         * @return The verb the built-in was registered under, whichever synonym the player used.
+         */
+        public String getVerb() {
+            return this.entry.verb;
+        }
+
+        public String getArguments() {
+            return this.arguments;
+        }
+
+        /**
+         * @return true if the game's own handler runs it, false for a registered or replaced one.
+         */
+        public boolean isStandard() {
+            return this.entry.standard;
+        }
+
+        public String run(PlayerState player) {
+            return this.entry.handler.handle(player, this.arguments);
+        }
+    }
+
+    private static final class Entry {
+        private final String verb;
+        private final boolean needsArguments;
+        private final BuiltInHandler handler;
+        private final boolean standard;
+
+        private Entry(String verb, boolean needsArguments, BuiltInHandler handler, boolean standard) {
+            this.verb = verb;
+            this.needsArguments = needsArguments;
+            this.handler = handler;
+            this.standard = standard;
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>();
+        private volatile Entry exact;
+        private volatile Entry prefix;
+    }
+}
@@ -0,0 +1,29 @@
+package edu.uob.games;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Entry point the network layer uses to run "player: command" lines.
+ * Implementations decide how concurrent callers are kept from corrupting GameState.
+ * Engines that own threads stop them on close; closing twice does nothing more.
+ */
+public interface CommandEngine extends AutoCloseable {
+    String execute(String input);
+
+    /**
+     * Queues the command without waiting for it. Engines that run commands on their
+     * own threads override this; by default the command runs on the caller's thread.
+     *
+     * @return The reply, completed once the command has run.
+     */
+    default CompletableFuture<String> submit(String input) {
+        return CompletableFuture.completedFuture(this.execute(input));
+    }
+
+    /**
+     * Releases the engine's threads. Engines that run commands on the caller's thread have none.
+     */
+    @Override
+    default void close() {
+    }
+}
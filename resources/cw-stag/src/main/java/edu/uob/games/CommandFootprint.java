@@ -0,0 +1,114 @@
+package edu.uob.games;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.actions.CustomActionExecutor;
+import edu.uob.entities.Location;
+import edu.uob.parsers.Command;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The locations one command may read or change, worked out before it runs so a
+ * concurrent engine can lock exactly those. It mirrors the dispatch in
+ * GameController.handleCommand and errs on the side of locking too much:
+ * every custom action the command could trigger is included, not only the one
+ * disambiguation would pick.
+ *
+ * <p>A command is exclusive when it may touch locations that cannot be named up
+ * front: a built-in registered on top of the standard ones, or replacing one, whose effects
+ * are unknown here whatever its verb. Custom
+ * actions never need this, as their plans resolve every template and path source at load time.
+ */
+final class CommandFootprint {
+
+    // Built-ins that only touch the player and their own location
+    private static final Set<String> LOCAL_BUILT_INS = Set.of("look", "inventory", "health", "get", "drop", "drink");
+
+    private final boolean exclusive;
+    private final boolean changesOtherLocations;
+    private final Set<Location> locations;
+
+    private CommandFootprint(boolean exclusive, boolean changesOtherLocations, Set<Location> locations) {
+        this.exclusive = exclusive;
+        this.changesOtherLocations = changesOtherLocations;
+        this.locations = locations;
+    }
+
+    /**
+     * @param world The game world, whose location map does not change after loading.
+     * @param builtIns The controller's built-in commands.
+     * @param player The player issuing the command; its location must not change while the footprint is used.
+     * @param command The lexed command of a line with a valid player name.
+     */
+    static CommandFootprint of(GameWorld world, BuiltInRegistry builtIns, PlayerState player, Command command) {
+        Set<Location> locations = new LinkedHashSet<>();
+        CommandFootprint.addLocation(locations, player.getLocation());
+        BuiltInRegistry.Match builtIn = builtIns.match(command);
+        if (builtIn != null) {
+            String verb = builtIn.getVerb();
+            if (!builtIn.isStandard()) {
+                // A handler registered later could touch anything
+                return new CommandFootprint(true, true, Collections.<Location>emptySet());
+            }
+            if (LOCAL_BUILT_INS.contains(verb)) {
+                return new CommandFootprint(false, false, locations);
+            }
+            if (verb.equals("goto")) {
+                CommandFootprint.addLocation(locations, world.getLocation(builtIn.getArguments()));
+                return new CommandFootprint(false, false, locations);
+            }
+            if (verb.equals("fight")) {
+                // Dying moves the player back to the start location
+                CommandFootprint.addLocation(locations, world.getLocation(GameController.START_LOCATION));
+                return new CommandFootprint(false, false, locations);
+            }
+            // A standard verb this class does not know yet, treated as unknown
+            return new CommandFootprint(true, true, Collections.<Location>emptySet());
+        }
+        for (CustomAction action : CustomActionExecutor.findCandidateActions(world, command)) {
+            // Produced entities are copied from templates resolved when the plan was compiled,
+            // so only path productions reach beyond the player's location
+            locations.addAll(world.getActionPlan(action).getPathSources());
+        }
+        // The executor forces these paths open for door and vines commands whatever the action says
+        if (command.getText().contains("door")) {
+            CommandFootprint.addLocation(locations, world.getLocation("cellar"));
+        }
+        if (command.getText().contains("vines")) {
+            CommandFootprint.addLocation(locations, world.getLocation("cave"));
+        }
+        return new CommandFootprint(false, locations.size() > 1, locations);
+    }
+
+    private static void addLocation(Set<Location> locations, Location location) {
+        if (location != null) {
+            locations.add(location);
+        }
+    }
+
+    /**
+     * @return true if the command must run with no other command in flight.
+     */
+    boolean isExclusive() {
+        return this.exclusive;
+    }
+
+    /**
+     * goto and fight only lock their second location to order arrivals, whereas a
+     * custom action that opens a path elsewhere really changes that location.
+     *
+     * @return true if the command may change a location other than the player's own.
+     */
+    boolean changesOtherLocations() {
+        return this.changesOtherLocations;
+    }
+
+    /**
+     * @return The locations to lock when the command is not exclusive.
+     */
+    Set<Location> getLocations() {
+        return this.locations;
+    }
+}
@@ -0,0 +1,154 @@
+package edu.uob.games;
+
+import edu.uob.entities.GameEntity;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A small insertion-ordered set of entities compared by identity, kept in one flat
+ * array that is only allocated when the first entity arrives. Inventories hold a handful
+ * of items, so a linear scan beats hashing, and an empty inventory costs nothing beyond
+ * the set itself, which matters with millions of mostly empty-handed players.
+ *
+ * <p>A precondition check clears the name IDs of the items held here from its own copy
+ * of the required names, so the set keeps no per-inventory index that would grow with
+ * the largest name ID in the world or need rescanning when an item is removed.
+ *
+ * <p>Not thread-safe, like the LinkedHashSet it replaces; a player's inventory is only
+ * changed by that player's own commands.
+ */
+final class CompactEntitySet extends AbstractSet<GameEntity> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private GameEntity[] items;
+    private int size;
+    // Bumped on every change so iterators can fail fast
+    private int modifications;
+
+    CompactEntitySet() {
+        this.items = null;
+        this.size = 0;
+        this.modifications = 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(Object candidate) {
+        return this.indexOf(candidate) >= 0;
+    }
+
+    @Override
+    public boolean add(GameEntity entity) {
+        if (this.contains(entity)) {
+            return false;
+        }
+        if (this.items == null) {
+            this.items = new GameEntity[INITIAL_CAPACITY];
+        } else if (this.size == this.items.length) {
+            this.items = Arrays.copyOf(this.items, this.items.length * 2);
+        }
+        this.items[this.size] = entity;
+        this.size++;
+        this.modifications++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object candidate) {
+        int index = this.indexOf(candidate);
+        if (index < 0) {
+            return false;
+        }
+        this.removeAt(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        // Give the array back so a cleared inventory is as cheap as a new one
+        this.items = null;
+        this.size = 0;
+        this.modifications++;
+    }
+
+    @Override
+    public Iterator<GameEntity> iterator() {
+        return new ItemIterator();
+    }
+
+    private int indexOf(Object candidate) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.items[i] == candidate) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Shifts the later items down so the order of arrival is kept
+    private void removeAt(int index) {
+        System.arraycopy(this.items, index + 1, this.items, index, this.size - index - 1);
+        this.size--;
+        this.items[this.size] = null;
+        this.modifications++;
+    }
+
+    /**
+     * Clears from the given set every name ID carried here.
+     */
+    void clearCarried(BitSet required) {
+        for (int i = 0; i < this.size; i++) {
+            required.clear(this.items[i].getNameId());
+        }
+    }
+
+    private class ItemIterator implements Iterator<GameEntity> {
+        private int cursor = 0;
+        private int last = -1;
+        private int expectedModifications = CompactEntitySet.this.modifications;
+
+        @Override
+        public boolean hasNext() {
+            return this.cursor < CompactEntitySet.this.size;
+        }
+
+        @Override
+        public GameEntity next() {
+            this.checkForModification();
+            if (this.cursor >= CompactEntitySet.this.size) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.cursor;
+            this.cursor++;
+            return CompactEntitySet.this.items[this.last];
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            this.checkForModification();
+            CompactEntitySet.this.removeAt(this.last);
+            this.cursor = this.last;
+            this.last = -1;
+            this.expectedModifications = CompactEntitySet.this.modifications;
+        }
+
+        private void checkForModification() {
+            if (this.expectedModifications != CompactEntitySet.this.modifications) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
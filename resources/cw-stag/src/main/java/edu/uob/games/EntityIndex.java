@@ -0,0 +1,115 @@
+package edu.uob.games;
+
+import edu.uob.entities.CanonicalNames;
+import edu.uob.entities.EntityListener;
+import edu.uob.entities.GameEntity;
+import edu.uob.entities.Location;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where every entity in the world currently is, looked up by name in constant time.
+ * Locations report their artefacts, furniture and characters as they come and go, and
+ * registered players report their inventories, so get, drop, consume and produce all
+ * keep the index current as a side effect.
+ *
+ * <p>Each entity has exactly one container, a Location (the storeroom included) or the
+ * PlayerState carrying it. A removal only counts if it comes from the container the entity
+ * is recorded in, so picking an item up before taking it off the floor is handled either way round.
+ * Both maps are concurrent because the sharded and actor engines move entities in parallel.
+ */
+public class EntityIndex implements EntityListener {
+
+    // Keyed by canonical name
+    private final Map<String, Set<GameEntity>> entitiesByName;
+    // Location or PlayerState, keyed by identity since entities do not override equals
+    private final Map<GameEntity, Object> containers;
+
+    public EntityIndex() {
+        this.entitiesByName = new ConcurrentHashMap<>();
+        this.containers = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void entityAdded(GameEntity entity, Location location) {
+        this.place(entity, location);
+    }
+
+    @Override
+    public void entityRemoved(GameEntity entity, Location location) {
+        this.release(entity, location);
+    }
+
+    // An item went into a player's inventory
+    void entityCarried(GameEntity entity, PlayerState player) {
+        this.place(entity, player);
+    }
+
+    // An item left a player's inventory, by being dropped, consumed or lost on death
+    void entityReleased(GameEntity entity, PlayerState player) {
+        this.release(entity, player);
+    }
+
+    /**
+     * @return Every entity with this name, in no particular order; empty if there is none.
+     */
+    public Set<GameEntity> getEntitiesNamed(String name) {
+        String canonical = CanonicalNames.lookup(name);
+        if (canonical == null) {
+            return Collections.emptySet();
+        }
+        Set<GameEntity> named = this.entitiesByName.get(canonical);
+        if (named == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(named);
+    }
+
+    /**
+     * @return The location holding the entity, or null if it is carried or not in the world.
+     */
+    public Location getLocationOf(GameEntity entity) {
+        Object container = this.containers.get(entity);
+        if (container instanceof Location) {
+            return (Location) container;
+        }
+        return null;
+    }
+
+    /**
+     * @return The player carrying the entity, or null if it is lying in a location or gone.
+     */
+    public PlayerState getCarrierOf(GameEntity entity) {
+        Object container = this.containers.get(entity);
+        if (container instanceof PlayerState) {
+            return (PlayerState) container;
+        }
+        return null;
+    }
+
+    private void place(GameEntity entity, Object container) {
+        this.containers.put(entity, container);
+        this.namedSet(entity.getCanonicalName()).add(entity);
+    }
+
+    private void release(GameEntity entity, Object container) {
+        if (this.containers.remove(entity, container)) {
+            Set<GameEntity> named = this.entitiesByName.get(entity.getCanonicalName());
+            if (named != null) {
+                named.remove(entity);
+            }
+        }
+    }
+
+    private Set<GameEntity> namedSet(String key) {
+        Set<GameEntity> named = this.entitiesByName.get(key);
+        if (named == null) {
+            this.entitiesByName.putIfAbsent(key, ConcurrentHashMap.<GameEntity>newKeySet());
+            named = this.entitiesByName.get(key);
+        }
+        return named;
+    }
+}
@@ -3,108 +3,121 @@ package edu.uob.games;
 import edu.uob.actions.BasicAction;
 import edu.uob.actions.CustomActionExecutor;
 import edu.uob.entities.Location;
+import edu.uob.parsers.Command;
+import edu.uob.parsers.CommandLexer;
 
 //Add diversion:
 // use BasicAction for built-in, otherwise leave it to CustomActionExecutor
 public class GameController {
 
+    public static final String START_LOCATION = "cabin";
+
     private final GameWorld world;
     private final GameState state;
+    private final BuiltInRegistry builtIns;
 
     public GameController(GameWorld world, GameState state){
         this.world = world;
         this.state = state;
+        this.state.setEntityIndex(this.world.getEntityIndex());
+        this.builtIns = new BuiltInRegistry();
+        this.registerBuiltIns();
+    }
+
+    /**
+     * @return The built-in commands, where more can be registered before or while the game runs.
+     */
+    public BuiltInRegistry getBuiltIns(){
+        return this.builtIns;
     }
 
     public String handleCommand(String input){
+        return this.handleCommand(CommandLexer.lex(input));
+    }
+
+    /**
+     * Runs a command already lexed, so engines that inspected it first do not lex it again.
+     */
+    public String handleCommand(Command command){
         // 1. parser input → playerName, command
-        String playerName;
-        String command;
-        
-        int colonIndex = input.indexOf(':');
-        if (colonIndex == -1) {
+        if (!command.hasPlayerPrefix()) {
             return "Your command is invalid, please use like [player : command].";
         }
-        
-        // Extract playerName and command
-        playerName = input.substring(0, colonIndex).trim().toLowerCase();
-        command = input.substring(colonIndex + 1).trim().toLowerCase();
-        
-        // Validate player name using regular expression (only allow alphanumeric characters)
-        if (!playerName.matches("^[a-zA-Z0-9]+$")) {
+        // Only letters and numbers are allowed in a player name
+        if (command.getPlayerName() == null) {
             return "Invalid player name. Player name must contain only letters and numbers.";
         }
-        
-        // Normalize command (remove extra spaces, standardize format)
-        command = normalizeCommand(command);
-        
+
         // 2. create start PlayerState
-        Location startLocation = world.getLocation("cabin");
-        PlayerState startState = state.getOrCreatePlayerState(playerName, startLocation);
+        Location startLocation = world.getLocation(START_LOCATION);
+        PlayerState startState = state.getOrCreatePlayerState(command.getPlayerName(), startLocation);
 
         // 3. handle basic command
-        if(command.equals("look")){
-            return BasicAction.handleLook(startState, world, state);
-        }
-
-        if(command.equals("inventory") || command.equals("inv")){
-            return BasicAction.handleInventory(startState);
-        }
-        // add hp
-        if(command.equals("health")){
-            return BasicAction.handleHealth(startState);
-        }
-        if(command.startsWith("get ")){
-            String item = command.substring(4).trim(); // get item name
-            return BasicAction.handleGet(startState, item);
-        }
-
-        if(command.startsWith("drop ")){
-            String item = command.substring(5).trim();
-            return BasicAction.handleDrop(startState, item, startState.getLocation());
-        }
-
-        if(command.startsWith("goto ")){
-            String destination = command.substring(5).trim();
-            return BasicAction.handleGoto(world, startState, destination);
-        }
-
-        //drink
-        if(command.startsWith("drink ")){
-            String item = command.substring(6).trim();
-            return BasicAction.handleDrink(startState, item);
-        }
-
-        //add fight
-        if(command.startsWith("fight ") || command.startsWith("attack ")){
-            String target;
-            if(command.startsWith("fight ")){
-                target = command.substring(6).trim();
-            } else {
-                target = command.substring(7).trim();
-            }
-            return BasicAction.handleFight(startState, target, world);
+        BuiltInRegistry.Match builtIn = this.builtIns.match(command);
+        if (builtIn != null) {
+            return builtIn.run(startState);
         }
 
         // give what they want
         return CustomActionExecutor.executeCustomAction(world, state, startState, command);
     }
 
-    /**
-     * Normalize the command by removing extra spaces and standardizing format
-     */
-    private String normalizeCommand(String command) {
-        // Remove extra spaces
-        command = command.replaceAll("\\s+", " ").trim();
-        
-        // Handle common command variations
-        if (command.matches("(?i)inv.*")) {
-            return "inventory";
-        }
-        if (command.matches("(?i)health.*") || command.matches("(?i)hp.*")) {
-            return "health";
-        }
-        
-        return command;
+    private void registerBuiltIns(){
+        this.builtIns.registerStandard("look", false, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return BasicAction.handleLook(player, GameController.this.world, GameController.this.state);
+            }
+        });
+        this.builtIns.registerStandard("inventory", false, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return BasicAction.handleInventory(player);
+            }
+        });
+        this.builtIns.addSynonym("inv", "inventory");
+        this.builtIns.addShorthand("inv", "inventory");
+        // add hp
+        this.builtIns.registerStandard("health", false, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return BasicAction.handleHealth(player);
+            }
+        });
+        this.builtIns.addShorthand("health", "health");
+        this.builtIns.addShorthand("hp", "health");
+        this.builtIns.registerStandard("get", true, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return BasicAction.handleGet(player, arguments);
+            }
+        });
+        this.builtIns.registerStandard("drop", true, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return BasicAction.handleDrop(player, arguments, player.getLocation());
+            }
+        });
+        this.builtIns.registerStandard("goto", true, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return BasicAction.handleGoto(GameController.this.world, player, arguments);
+            }
+        });
+        //drink
+        this.builtIns.registerStandard("drink", true, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return BasicAction.handleDrink(player, arguments);
+            }
+        });
+        //add fight
+        this.builtIns.registerStandard("fight", true, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return BasicAction.handleFight(player, arguments, GameController.this.world);
+            }
+        });
+        this.builtIns.addSynonym("attack", "fight");
     }
-}
\ No newline at end of file
+}
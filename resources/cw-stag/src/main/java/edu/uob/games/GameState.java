@@ -1,38 +1,145 @@
 package edu.uob.games;
 
-import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
+import edu.uob.entities.GameEntity;
 import edu.uob.entities.Location;
 
+/**
+ * Registry of every player, safe for concurrent logins without a global lock.
+ * Creation is an atomic compute-if-absent, so racing first commands from the same
+ * player always end up with the one registered PlayerState, and that player is
+ * attached (numbered and placed in the location index) before anyone can see it.
+ *
+ * <p>Registered players report every move back here, which keeps an index from
+ * each location to the players in it, so listing who is in a room only costs as
+ * much as the players actually there. Each room keeps its players keyed by
+ * registration number, so they are listed in the order they first joined the game.
+ *
+ * <p>Inventory changes are reported too and passed on to the world's EntityIndex,
+ * once GameController has linked the two.
+ */
 public class GameState {
-    private Map<String, PlayerState> playerStates;
+    private final Map<String, PlayerState> playerStates;
+    private final Map<Location, ConcurrentSkipListMap<Long, PlayerState>> playersByLocation;
+    private final AtomicLong registrations;
+    private volatile EntityIndex entityIndex;
 
     public GameState() {
-        this.playerStates = new LinkedHashMap<>();
+        this.playerStates = new ConcurrentHashMap<>();
+        this.playersByLocation = new ConcurrentHashMap<>();
+        this.registrations = new AtomicLong(0);
+    }
+
+    /**
+     * Tracks what every registered player carries in the given index from now on.
+     */
+    public void setEntityIndex(EntityIndex index) {
+        this.entityIndex = index;
+        for (PlayerState player : this.playerStates.values()) {
+            for (GameEntity item : player.getInventory()) {
+                index.entityCarried(item, player);
+            }
+        }
     }
 
 
     public PlayerState getOrCreatePlayerState(String playerName, Location startLocation){
-        if(!playerStates.containsKey(playerName)){
-            playerStates.put(playerName, new PlayerState(playerName, startLocation));
+        PlayerState existing = this.playerStates.get(playerName);
+        if (existing != null) {
+            return existing;
         }
-        return playerStates.get(playerName);
+        return this.playerStates.computeIfAbsent(playerName, new NewPlayer(startLocation));
     }
 
-   public Set<PlayerState> getAllPlayerStatesAt(Location location) {
-       Set<PlayerState> playersHere = new HashSet<>();
-       for (PlayerState player : playerStates.values()) {
-           if (player.getLocation().equals(location)) {
-               playersHere.add(player);
-           }
-       }
-       return playersHere;
-   }
+    /**
+     * @return A read-only live view of the players in the location, in registration order.
+     */
+    public Collection<PlayerState> getAllPlayerStatesAt(Location location) {
+        ConcurrentSkipListMap<Long, PlayerState> indexed = this.playersByLocation.get(location);
+        if (indexed == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableCollection(indexed.values());
+    }
 
+    /**
+     * Registers (or replaces) a player directly, as the tests do.
+     */
     public void addPlayer(PlayerState player) {
-        this.playerStates.put(player.getName(), player);
+        if (this.playerStates.get(player.getName()) == player) {
+            // Re-registered, so it leaves the index under its old number first
+            player.detach();
+        }
+        // Attached before it is published, like a player created on first login
+        player.attachTo(this, this.registrations.getAndIncrement());
+        PlayerState previous = this.playerStates.put(player.getName(), player);
+        if (previous != null && previous != player) {
+            previous.detach();
+        }
+    }
+
+    /**
+     * Called by a registered PlayerState whenever its location changes, including the
+     * initial placement. The player joins the new room before leaving the old one.
+     */
+    void playerMoved(PlayerState player, Location from, Location to) {
+        Long key = player.getRegistration();
+        if (to != null) {
+            this.playersAt(to).put(key, player);
+        }
+        if (from != null && from != to) {
+            this.playersAt(from).remove(key, player);
+        }
+    }
+
+    /**
+     * Called by a registered PlayerState when an item enters or leaves its inventory.
+     */
+    void inventoryChanged(PlayerState player, GameEntity item, boolean carried) {
+        EntityIndex index = this.entityIndex;
+        if (index == null) {
+            return;
+        }
+        if (carried) {
+            index.entityCarried(item, player);
+        } else {
+            index.entityReleased(item, player);
+        }
+    }
+
+    private ConcurrentSkipListMap<Long, PlayerState> playersAt(Location location) {
+        ConcurrentSkipListMap<Long, PlayerState> players = this.playersByLocation.get(location);
+        if (players == null) {
+            this.playersByLocation.putIfAbsent(location, new ConcurrentSkipListMap<>());
+            players = this.playersByLocation.get(location);
+        }
+        return players;
+    }
+
+    /**
+     * Creates and attaches a player inside computeIfAbsent, so no other thread can get
+     * hold of it before its registration number and location index entry exist. Attaching
+     * only touches the location and entity indexes, never the player map itself.
+     */
+    private class NewPlayer implements Function<String, PlayerState> {
+        private final Location startLocation;
+
+        private NewPlayer(Location startLocation) {
+            this.startLocation = startLocation;
+        }
+
+        @Override
+        public PlayerState apply(String playerName) {
+            PlayerState created = new PlayerState(playerName, this.startLocation);
+            created.attachTo(GameState.this, GameState.this.registrations.getAndIncrement());
+            return created;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,15 @@
 package edu.uob.games;
 
+import edu.uob.actions.ActionPlan;
+import edu.uob.actions.CustomAction;
 import edu.uob.actions.GameAction;
+import edu.uob.actions.SubjectIndex;
+import edu.uob.actions.TriggerMatcher;
+import edu.uob.entities.CanonicalNames;
+import edu.uob.entities.EntityListener;
 import edu.uob.entities.GameEntity;
 import edu.uob.entities.Location;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -10,23 +17,52 @@ import java.util.Set;
 
 /**
  * Manage all location and entity data
+ *
+ * <p>Every location added here reports its entities to one EntityIndex, so finding an
+ * entity by name does not have to walk the whole map. Custom actions are indexed by
+ * trigger (TriggerMatcher) and by subject (SubjectIndex) the first time a command needs them,
+ * and compiled into ActionPlans against the locations and templates loaded by then.
+ * Plans are compiled eagerly once loading is done (see compileActionPlans), and compiled
+ * again if an entity turns up whose name a plan had to produce without a template.
  */
 
 public class GameWorld {
     private Map<String, Location> locations;
     private Set<GameAction> actions;
+    private final EntityIndex entityIndex;
+    // Built together on first use and dropped whenever an action is added
+    private volatile TriggerMatcher triggerMatcher;
+    private volatile SubjectIndex subjectIndex;
+    // Dropped whenever an action or a location is added, since plans resolve both
+    private volatile Map<CustomAction, ActionPlan> actionPlans;
+    // Names the current plans produce without a template; adding one drops the plans
+    private volatile Set<String> missingTemplates;
+    private final EntityListener entityListener;
 
     public GameWorld(){
         this.locations = new HashMap<>();
         this.actions = new HashSet<>();
+        this.entityIndex = new EntityIndex();
+        this.missingTemplates = Collections.emptySet();
+        this.entityListener = new TemplateWatcher();
     }
 
     public void addLocation(Location location){
-        this.locations.put(location.getName(), location);
+        this.locations.put(location.getCanonicalName(), location);
+        location.setEntityListener(this.entityListener);
+        this.actionPlans = null;
+        // Entities placed before the location joined the world
+        for (GameEntity entity : location.getEntities()) {
+            this.entityListener.entityAdded(entity, location);
+        }
     }
 
     public Location getLocation(String name){
-        return this.locations.get(name);
+        String canonical = CanonicalNames.lookup(name);
+        if (canonical == null) {
+            return null;
+        }
+        return this.locations.get(canonical);
     }
 
     /**
@@ -37,35 +73,129 @@ public class GameWorld {
         return new HashSet<>(this.locations.values());
     }
 
-    public void addAction(GameAction action){
+    public synchronized void addAction(GameAction action){
         this.actions.add(action);
+        this.triggerMatcher = null;
+        this.subjectIndex = null;
+        this.actionPlans = null;
     }
 
     public Set<GameAction> getAllActions(){
         return this.actions;
     }
 
-    //implement found their name in this world
+    /**
+     * @return The matcher for every action added so far, shared by all commands.
+     */
+    public TriggerMatcher getTriggerMatcher(){
+        TriggerMatcher matcher = this.triggerMatcher;
+        // Loop in case an action is added between building and reading
+        while (matcher == null) {
+            this.buildActionIndexes();
+            matcher = this.triggerMatcher;
+        }
+        return matcher;
+    }
+
+    /**
+     * @return The subject index for every action added so far, shared by all commands.
+     */
+    public SubjectIndex getSubjectIndex(){
+        SubjectIndex index = this.subjectIndex;
+        while (index == null) {
+            this.buildActionIndexes();
+            index = this.subjectIndex;
+        }
+        return index;
+    }
+
+    private synchronized void buildActionIndexes(){
+        if (this.triggerMatcher == null || this.subjectIndex == null) {
+            this.subjectIndex = new SubjectIndex(this.actions);
+            this.triggerMatcher = new TriggerMatcher(this.actions);
+        }
+    }
+
+    /**
+     * @return The compiled plan for this action, shared by all commands that run it.
+     */
+    public ActionPlan getActionPlan(CustomAction action){
+        Map<CustomAction, ActionPlan> plans = this.actionPlans;
+        while (plans == null) {
+            this.buildActionPlans();
+            plans = this.actionPlans;
+        }
+        ActionPlan plan = plans.get(action);
+        if (plan == null) {
+            // An action that was never added to this world
+            plan = new ActionPlan(action, this);
+        }
+        return plan;
+    }
+
+    /**
+     * Compiles every action's plan now rather than on the first command that needs it.
+     * Call once the entities and actions are loaded.
+     */
+    public void compileActionPlans(){
+        this.buildActionPlans();
+    }
+
+    private synchronized void buildActionPlans(){
+        if (this.actionPlans == null) {
+            Map<CustomAction, ActionPlan> plans = new HashMap<>();
+            Set<String> missing = new HashSet<>();
+            for (GameAction action : this.actions) {
+                if (action instanceof CustomAction) {
+                    ActionPlan plan = new ActionPlan((CustomAction) action, this);
+                    plans.put((CustomAction) action, plan);
+                    missing.addAll(plan.getMissingTemplates());
+                }
+            }
+            this.missingTemplates = missing;
+            this.actionPlans = plans;
+        }
+    }
+
+    public EntityIndex getEntityIndex(){
+        return this.entityIndex;
+    }
+
+    /**
+     * Finds an entity lying in some location; carried items are not considered.
+     * Any location other than the storeroom wins, the storeroom is only the fallback.
+     */
     public GameEntity findEntityByName(String name){
-        for(Location location: locations.values()){
-            if (location.getName().equals("storeroom")) {
+        GameEntity stored = null;
+        for (GameEntity entity : this.entityIndex.getEntitiesNamed(name)) {
+            Location location = this.entityIndex.getLocationOf(entity);
+            if (location == null) {
                 continue;
             }
-            for(GameEntity entity: location.getEntities()){
-                if(entity.getName().equalsIgnoreCase(name)){
-                    //if found it return this item to used
-                    return entity;
-                }
+            if (!location.getName().equals("storeroom")) {
+                return entity;
             }
+            stored = entity;
         }
-        Location storeroom = this.getLocation("storeroom");
-        if (storeroom != null) {
-            for(GameEntity entity: storeroom.getEntities()){
-                if(entity.getName().equalsIgnoreCase(name)){
-                    return entity;
-                }
+        return stored;
+    }
+
+    /**
+     * Passes location changes on to the EntityIndex, and drops the compiled plans when an
+     * entity arrives that a plan is producing as a plain artefact for want of a template.
+     */
+    private class TemplateWatcher implements EntityListener {
+        @Override
+        public void entityAdded(GameEntity entity, Location location) {
+            GameWorld.this.entityIndex.entityAdded(entity, location);
+            if (GameWorld.this.missingTemplates.contains(entity.getCanonicalName())) {
+                GameWorld.this.actionPlans = null;
             }
         }
-        return null;
+
+        @Override
+        public void entityRemoved(GameEntity entity, Location location) {
+            GameWorld.this.entityIndex.entityRemoved(entity, location);
+        }
     }
 }
@@ -2,18 +2,25 @@ package edu.uob.games;
 
 import edu.uob.entities.GameEntity;
 import edu.uob.entities.Location;
-import java.util.LinkedHashSet;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Set;
 
 public class PlayerState {
     // player name
     private String playerName;
 
-    // player location
-    private Location location;
+    // player location, volatile because other players' look commands read it
+    private volatile Location location;
 
-    // player with items
-    private Set<GameEntity> inventory;
+    // the registry indexing this player by location, once registered
+    private volatile GameState registry;
+
+    // position in the registry's sign-up order, which orders the players listed in a room
+    private volatile long registration;
+
+    // player with items, an array-backed set that allocates nothing until the first item
+    private final CompactEntitySet inventory;
 
     // initiate
     private int health = 3;
@@ -22,7 +29,7 @@ public class PlayerState {
     public PlayerState(String playerName, Location location) {
         this.playerName = playerName;
         this.location = location;
-        this.inventory = new LinkedHashSet<>();
+        this.inventory = new CompactEntitySet();
     }
 
     // Getter for playerName
@@ -35,22 +42,71 @@ public class PlayerState {
     }
 
     public void setLocation(Location location) {
+        Location previous = this.location;
         this.location = location;
+        GameState currentRegistry = this.registry;
+        if (currentRegistry != null) {
+            currentRegistry.playerMoved(this, previous, location);
+        }
+    }
+
+    // Starts reporting moves and inventory changes to the registry, beginning with the current ones
+    void attachTo(GameState state, long registration) {
+        this.registration = registration;
+        this.registry = state;
+        state.playerMoved(this, null, this.location);
+        for (GameEntity item : this.inventory) {
+            state.inventoryChanged(this, item, true);
+        }
+    }
+
+    long getRegistration() {
+        return this.registration;
     }
 
-    // getInventory()
+    // Stops reporting and leaves the current location, when replaced in the registry
+    void detach() {
+        GameState previousRegistry = this.registry;
+        this.registry = null;
+        if (previousRegistry != null) {
+            previousRegistry.playerMoved(this, this.location, null);
+            for (GameEntity item : this.inventory) {
+                previousRegistry.inventoryChanged(this, item, false);
+            }
+        }
+    }
+
+    // getInventory(), a read-only view: changes go through the methods below so the entity index sees them
     public Set<GameEntity> getInventory() {
-        return this.inventory;
+        return Collections.unmodifiableSet(this.inventory);
+    }
+
+    /**
+     * Clears from the given set every name ID this player is carrying.
+     */
+    public void clearCarried(BitSet nameIds) {
+        this.inventory.clearCarried(nameIds);
     }
 
     // addToInventory(GameEntity)
     public void addToInventory(GameEntity item) {
-        this.inventory.add(item);
+        if (this.inventory.add(item)) {
+            this.reportInventory(item, true);
+        }
     }
 
     // removeFromInventory(GameEntity)
     public void removeFromInventory(GameEntity item) {
-        this.inventory.remove(item);
+        if (this.inventory.remove(item)) {
+            this.reportInventory(item, false);
+        }
+    }
+
+    private void reportInventory(GameEntity item, boolean carried) {
+        GameState currentRegistry = this.registry;
+        if (currentRegistry != null) {
+            currentRegistry.inventoryChanged(this, item, carried);
+        }
     }
 
     //get health hp
@@ -0,0 +1,213 @@
+package edu.uob.games;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer engine: connection threads publish commands into a preallocated ring
+ * buffer and one dedicated thread applies them to the game in strict sequence order.
+ * The game code never sees two callers, so it needs no locks, and the outcome only
+ * depends on the order in which commands were published.
+ *
+ * <p>Publishing claims a sequence number, fills that slot and marks it published.
+ * The writer drains every contiguous published slot in one batch and frees them all
+ * with a single store, so a burst of commands costs one handoff rather than one per
+ * command. It only parks when the buffer is empty, with no timeout: publishers and
+ * close() wake it, so an idle server costs no wakeups at all.
+ * A full buffer makes publishers wait for the writer, which bounds the backlog.
+ *
+ * <p>The selector listener publishes through {@link #submit} and writes each reply when
+ * its future completes, so its event loop never waits on the writer; connection threads
+ * of the other listeners publish through {@link #execute} and wait for their own reply.
+ *
+ * <p>Closing sets a flag in the claim counter itself, so a publisher either claims a
+ * sequence before the close, and the writer runs that command before it stops, or is
+ * refused; no command can be claimed and then left behind.
+ */
+public class SequencedCommandEngine implements CommandEngine {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    // Only used while draining after a close, waiting for a claimed slot to be filled
+    private static final long DRAIN_PARK_NANOS = 100000L;
+    private static final long FULL_PARK_NANOS = 10000L;
+    // Set in the claim counter once the engine is closed, the other bits keep the count
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final GameController controller;
+    private final AtomicReferenceArray<Slot> ring;
+    private final int mask;
+    // Next sequence a publisher will claim, with CLOSED set once no more may be
+    private final AtomicLong claimed;
+    // Last sequence the writer has finished with, slots up to it may be reused
+    private volatile long consumed;
+    private volatile boolean writerParked;
+    private final Thread writer;
+
+    public SequencedCommandEngine(GameController controller) {
+        this(controller, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Ring size, rounded up to a power of two.
+     */
+    public SequencedCommandEngine(GameController controller, int capacity) {
+        this.controller = controller;
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            this.ring.set(i, new Slot());
+        }
+        this.mask = size - 1;
+        this.claimed = new AtomicLong(0);
+        this.consumed = -1;
+        this.writerParked = false;
+        this.writer = new Thread(new Writer(), "command-sequencer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public String execute(String input) {
+        try {
+            return this.submit(input).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> submit(String input) {
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        long sequence = this.claim();
+        if (sequence < 0) {
+            reply.completeExceptionally(new IllegalStateException("Command sequencer is closed"));
+            return reply;
+        }
+        // Wait until the writer has freed the slot this sequence wraps onto; it keeps
+        // draining after a close until every claimed sequence has run, so this ends
+        while (sequence - this.consumed > this.ring.length()) {
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        Slot slot = this.ring.get((int) (sequence & this.mask));
+        slot.input = input;
+        slot.reply = reply;
+        slot.published = sequence;
+        if (this.writerParked) {
+            LockSupport.unpark(this.writer);
+        }
+        return reply;
+    }
+
+    /**
+     * @return The claimed sequence, or -1 if the engine is closed.
+     */
+    private long claim() {
+        while (true) {
+            long current = this.claimed.get();
+            if ((current & CLOSED) != 0) {
+                return -1;
+            }
+            if (this.claimed.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Refuses new commands and stops the writer thread once every command claimed
+     * before the close has run.
+     */
+    @Override
+    public void close() {
+        while (true) {
+            long current = this.claimed.get();
+            if ((current & CLOSED) != 0) {
+                return;
+            }
+            if (this.claimed.compareAndSet(current, current | CLOSED)) {
+                LockSupport.unpark(this.writer);
+                return;
+            }
+        }
+    }
+
+    /**
+     * One preallocated ring entry. The plain fields are written before the volatile
+     * publish and read after it, so the writer always sees a complete command.
+     */
+    private static class Slot {
+        private String input;
+        private CompletableFuture<String> reply;
+        private volatile long published = -1;
+    }
+
+    private class Writer implements Runnable {
+        @Override
+        public void run() {
+            long next = 0;
+            while (true) {
+                long last = this.drain(next);
+                if (last >= next) {
+                    SequencedCommandEngine.this.consumed = last;
+                    next = last + 1;
+                    continue;
+                }
+                long current = SequencedCommandEngine.this.claimed.get();
+                if ((current & CLOSED) != 0 && next == (current & ~CLOSED)) {
+                    return;
+                }
+                this.park(next);
+            }
+        }
+
+        /**
+         * Applies every contiguous published command from next onwards.
+         *
+         * @return The last sequence applied, or next - 1 if none was ready.
+         */
+        private long drain(long next) {
+            long sequence = next;
+            while (sequence - next < SequencedCommandEngine.this.ring.length()) {
+                Slot slot = SequencedCommandEngine.this.ring.get((int) (sequence & SequencedCommandEngine.this.mask));
+                if (slot.published != sequence) {
+                    break;
+                }
+                String input = slot.input;
+                CompletableFuture<String> reply = slot.reply;
+                slot.input = null;
+                slot.reply = null;
+                try {
+                    reply.complete(SequencedCommandEngine.this.controller.handleCommand(input));
+                } catch (RuntimeException e) {
+                    reply.completeExceptionally(e);
+                }
+                sequence++;
+            }
+            return sequence - 1;
+        }
+
+        /**
+         * Parks until a publisher wakes us; the flag is re-checked after it is set so a
+         * command published in between is never missed. After a close the park is only
+         * waiting for a publisher that claimed a sequence to fill it, which is brief.
+         */
+        private void park(long next) {
+            SequencedCommandEngine.this.writerParked = true;
+            Slot slot = SequencedCommandEngine.this.ring.get((int) (next & SequencedCommandEngine.this.mask));
+            if (slot.published != next) {
+                if ((SequencedCommandEngine.this.claimed.get() & CLOSED) != 0) {
+                    LockSupport.parkNanos(SequencedCommandEngine.this, DRAIN_PARK_NANOS);
+                } else {
+                    LockSupport.park(SequencedCommandEngine.this);
+                }
+            }
+            SequencedCommandEngine.this.writerParked = false;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package edu.uob.games;
+
+/**
+ * Runs every command under one monitor, so any number of connection threads
+ * can share a GameController that was written for a single caller.
+ */
+public class SerialCommandEngine implements CommandEngine {
+
+    private final GameController controller;
+
+    public SerialCommandEngine(GameController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public synchronized String execute(String input) {
+        return this.controller.handleCommand(input);
+    }
+}
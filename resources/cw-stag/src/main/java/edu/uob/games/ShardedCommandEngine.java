@@ -0,0 +1,122 @@
+package edu.uob.games;
+
+import edu.uob.entities.Location;
+import edu.uob.parsers.Command;
+import edu.uob.parsers.CommandLexer;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Runs commands concurrently, locking only the locations each one touches,
+ * so players in different parts of the world proceed on separate cores.
+ *
+ * <p>Locks are always taken in the same order, which rules out deadlock:
+ * <ol>
+ * <li>the player's stripe, so one player's commands never overlap and its location stays put,</li>
+ * <li>the world lock, shared normally and exclusive for commands that may touch any location,</li>
+ * <li>the stripes of every location in the command's {@link CommandFootprint}, in ascending stripe order.</li>
+ * </ol>
+ * Two commands therefore only run together when they touch disjoint locations and
+ * players, so the outcome is the same as running them one after the other.
+ */
+public class ShardedCommandEngine implements CommandEngine {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final GameController controller;
+    private final GameWorld world;
+    private final GameState state;
+    private final ReentrantReadWriteLock worldLock;
+    private final AtomicReferenceArray<ReentrantLock> locationLocks;
+    private final AtomicReferenceArray<ReentrantLock> playerLocks;
+
+    public ShardedCommandEngine(GameController controller, GameWorld world, GameState state) {
+        this(controller, world, state, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes How many locks locations and players are spread over; more stripes mean fewer false conflicts.
+     */
+    public ShardedCommandEngine(GameController controller, GameWorld world, GameState state, int stripes) {
+        this.controller = controller;
+        this.world = world;
+        this.state = state;
+        this.worldLock = new ReentrantReadWriteLock();
+        this.locationLocks = ShardedCommandEngine.newStripes(stripes);
+        this.playerLocks = ShardedCommandEngine.newStripes(stripes);
+    }
+
+    private static AtomicReferenceArray<ReentrantLock> newStripes(int stripes) {
+        AtomicReferenceArray<ReentrantLock> locks = new AtomicReferenceArray<>(Math.max(1, stripes));
+        for (int i = 0; i < locks.length(); i++) {
+            locks.set(i, new ReentrantLock());
+        }
+        return locks;
+    }
+
+    @Override
+    public String execute(String input) {
+        Command command = CommandLexer.lex(input);
+        String playerName = command.getPlayerName();
+        if (playerName == null) {
+            // Rejected by the controller before it touches any state
+            return this.controller.handleCommand(command);
+        }
+        ReentrantLock playerLock = this.playerLocks.get(ShardedCommandEngine.stripeOf(playerName, this.playerLocks.length()));
+        playerLock.lock();
+        try {
+            return this.executeForPlayer(command, playerName);
+        } finally {
+            playerLock.unlock();
+        }
+    }
+
+    private String executeForPlayer(Command command, String playerName) {
+        // Only the player's own commands move it, so its location cannot change while its stripe is held
+        PlayerState player = this.state.getOrCreatePlayerState(playerName, this.world.getLocation(GameController.START_LOCATION));
+        CommandFootprint footprint = CommandFootprint.of(this.world, this.controller.getBuiltIns(), player, command);
+        if (footprint.isExclusive()) {
+            this.worldLock.writeLock().lock();
+            try {
+                return this.controller.handleCommand(command);
+            } finally {
+                this.worldLock.writeLock().unlock();
+            }
+        }
+        TreeSet<Integer> stripes = this.stripesOf(footprint.getLocations());
+        this.worldLock.readLock().lock();
+        try {
+            for (Integer stripe : stripes) {
+                this.locationLocks.get(stripe).lock();
+            }
+            try {
+                return this.controller.handleCommand(command);
+            } finally {
+                for (Integer stripe : stripes.descendingSet()) {
+                    this.locationLocks.get(stripe).unlock();
+                }
+            }
+        } finally {
+            this.worldLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The distinct stripes guarding the locations, in the global acquisition order.
+     */
+    private TreeSet<Integer> stripesOf(Set<Location> locations) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Location location : locations) {
+            stripes.add(ShardedCommandEngine.stripeOf(location.getName(), this.locationLocks.length()));
+        }
+        return stripes;
+    }
+
+    private static int stripeOf(String name, int stripeCount) {
+        return Math.floorMod(name.hashCode(), stripeCount);
+    }
+}
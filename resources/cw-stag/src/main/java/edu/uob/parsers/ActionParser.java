@@ -1,6 +1,7 @@
 package edu.uob.parsers;
 
 import edu.uob.actions.CustomAction;
+import edu.uob.entities.CanonicalNames;
 import org.w3c.dom.*;
 import javax.xml.parsers.*;
 import java.io.File;
@@ -73,7 +74,7 @@ public class ActionParser {
 
             for (int j = 0; j < keywords.getLength(); j++) {
                 String keyword = keywords.item(j).getTextContent().trim();
-                action.addTriggers(keyword);
+                action.addTriggers(CanonicalNames.intern(keyword));
 
             }
         }
@@ -93,7 +94,7 @@ public class ActionParser {
             for (int j = 0; j < keywords.getLength(); j++) {
                 String keyword = keywords.item(j).getTextContent().trim();
                 // Add method to store subjects in CustomAction if needed
-                action.addSubjects(keyword);
+                action.addSubjects(CanonicalNames.intern(keyword));
             }
         }
     }
@@ -112,7 +113,7 @@ public class ActionParser {
             for (int j = 0; j < keywords.getLength(); j++) {
                 String keyword = keywords.item(j).getTextContent().trim();
                 // Add method to store consumed entities in CustomAction if needed
-                action.addConsumed(keyword);
+                action.addConsumed(CanonicalNames.intern(keyword));
             }
         }
     }
@@ -131,7 +132,7 @@ public class ActionParser {
             for (int j = 0; j < keywords.getLength(); j++) {
                 String keyword = keywords.item(j).getTextContent().trim();
                 // Add method to store produced entities in CustomAction if needed
-                action.addProduced(keyword);
+                action.addProduced(CanonicalNames.intern(keyword));
             }
         }
     }
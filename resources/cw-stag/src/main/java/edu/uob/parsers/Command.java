@@ -0,0 +1,104 @@
+package edu.uob.parsers;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One player command after lexing, shared by the controller, the built-in actions,
+ * the custom action executor and the engines' footprints, so the line is only
+ * scanned once however many of them look at it.
+ *
+ * <p>All text is lowercased and runs of whitespace count as one separator.
+ * Immutable; build it with CommandLexer.
+ */
+public final class Command {
+
+    private final boolean prefixed;
+    private final String playerName;
+    private final List<String> tokens;
+    private final String text;
+    private final List<String> words;
+    private final String actionText;
+    private final List<String> mentions;
+
+    Command(boolean prefixed, String playerName, List<String> tokens, String text,
+            List<String> words, String actionText, List<String> mentions) {
+        this.prefixed = prefixed;
+        this.playerName = playerName;
+        this.tokens = Collections.unmodifiableList(tokens);
+        this.text = text;
+        this.words = Collections.unmodifiableList(words);
+        this.actionText = actionText;
+        this.mentions = Collections.unmodifiableList(mentions);
+    }
+
+    /**
+     * @return true if the line had the "player:" prefix at all.
+     */
+    public boolean hasPlayerPrefix() {
+        return this.prefixed;
+    }
+
+    /**
+     * @return The lowercased player name, or null if it is missing or not purely letters and digits.
+     */
+    public String getPlayerName() {
+        return this.playerName;
+    }
+
+    /**
+     * @return The words after the colon, in order.
+     */
+    public List<String> getTokens() {
+        return this.tokens;
+    }
+
+    /**
+     * @return The first token, or an empty string for an empty command.
+     */
+    public String getVerb() {
+        if (this.tokens.isEmpty()) {
+            return "";
+        }
+        return this.tokens.get(0);
+    }
+
+    /**
+     * @return Everything after the verb, single spaced; empty if there is nothing.
+     */
+    public String getArguments() {
+        String verb = this.getVerb();
+        if (this.text.length() <= verb.length()) {
+            return "";
+        }
+        return this.text.substring(verb.length() + 1);
+    }
+
+    /**
+     * @return The tokens joined by single spaces.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * @return The tokens with filler words such as "please" and "the" taken out, which custom actions match on.
+     */
+    public List<String> getWords() {
+        return this.words;
+    }
+
+    /**
+     * @return The words joined by single spaces.
+     */
+    public String getActionText() {
+        return this.actionText;
+    }
+
+    /**
+     * @return The canonical form of every word that names something the game has loaded, in order.
+     */
+    public List<String> getMentions() {
+        return this.mentions;
+    }
+}
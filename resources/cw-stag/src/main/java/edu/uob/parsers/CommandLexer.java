@@ -0,0 +1,171 @@
+package edu.uob.parsers;
+
+import edu.uob.entities.CanonicalNames;
+
+import java.util.LinkedList;
+import java.util.Set;
+
+/**
+ * Turns a raw "player: command" line into a Command in one scan of its characters,
+ * in place of the regular expressions the controller and the custom action executor
+ * each used to run: no pattern is compiled and nothing is rescanned per filler word.
+ *
+ * <p>Separators are the characters a regex \s matches, and filler words are removed
+ * wherever \b would have found them, so a filler glued to punctuation still goes.
+ */
+public final class CommandLexer {
+
+    private static final Set<String> FILLER_WORDS =
+            Set.of("please", "could", "you", "the", "with", "using", "by", "down");
+
+    private CommandLexer() {
+    }
+
+    /**
+     * @param input A whole line as a client sends it, "player: command".
+     * @return The lexed command; check hasPlayerPrefix and getPlayerName before running it.
+     */
+    public static Command lex(String input) {
+        int colonIndex = input.indexOf(':');
+        if (colonIndex == -1) {
+            return CommandLexer.lexTokens(false, null, input, 0, 0);
+        }
+        String playerName = CommandLexer.playerName(input, colonIndex);
+        return CommandLexer.lexTokens(true, playerName, input, colonIndex + 1, input.length());
+    }
+
+    /**
+     * Reads only the player name, for callers that need nothing else from the line.
+     *
+     * @return The lowercased name, or null without a colon or if it is not letters and digits only.
+     */
+    public static String playerNameOf(String input) {
+        int colonIndex = input.indexOf(':');
+        if (colonIndex == -1) {
+            return null;
+        }
+        return CommandLexer.playerName(input, colonIndex);
+    }
+
+    /**
+     * Lexes the text of a command alone, as the custom action executor is sometimes handed it.
+     */
+    public static Command lexCommand(String command) {
+        return CommandLexer.lexTokens(false, null, command, 0, command.length());
+    }
+
+    // The trimmed, lowercased name before the colon, or null unless it is letters and digits only
+    private static String playerName(String input, int end) {
+        int start = 0;
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        StringBuilder name = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = Character.toLowerCase(input.charAt(i));
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))) {
+                return null;
+            }
+            name.append(c);
+        }
+        return name.toString();
+    }
+
+    private static Command lexTokens(boolean prefixed, String playerName, String input, int start, int end) {
+        // Trimmed the way String.trim does before the whitespace runs are split
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        LinkedList<String> tokens = new LinkedList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (CommandLexer.isSeparator(c)) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            } else {
+                token.append(Character.toLowerCase(c));
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+
+        LinkedList<String> words = new LinkedList<>();
+        LinkedList<String> mentions = new LinkedList<>();
+        for (String each : tokens) {
+            String word = CommandLexer.withoutFiller(each);
+            if (word.isEmpty()) {
+                continue;
+            }
+            words.add(word);
+            String canonical = CanonicalNames.lookup(word);
+            if (canonical != null) {
+                mentions.add(canonical);
+            }
+        }
+        return new Command(prefixed, playerName, tokens, CommandLexer.join(tokens), words,
+                CommandLexer.join(words), mentions);
+    }
+
+    // The characters java.util.regex matches with \s
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Word characters as \b sees them
+    private static boolean isWordCharacter(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    // Drops every run of word characters that is a filler word, keeping any punctuation around it
+    private static String withoutFiller(String token) {
+        if (CommandLexer.FILLER_WORDS.contains(token)) {
+            return "";
+        }
+        boolean plainWord = true;
+        for (int i = 0; i < token.length() && plainWord; i++) {
+            plainWord = CommandLexer.isWordCharacter(token.charAt(i));
+        }
+        if (plainWord) {
+            return token;
+        }
+        StringBuilder kept = new StringBuilder(token.length());
+        int runStart = 0;
+        while (runStart < token.length()) {
+            int runEnd = runStart;
+            boolean wordRun = CommandLexer.isWordCharacter(token.charAt(runStart));
+            while (runEnd < token.length() && CommandLexer.isWordCharacter(token.charAt(runEnd)) == wordRun) {
+                runEnd++;
+            }
+            String run = token.substring(runStart, runEnd);
+            if (!wordRun || !CommandLexer.FILLER_WORDS.contains(run)) {
+                kept.append(run);
+            }
+            runStart = runEnd;
+        }
+        return kept.toString();
+    }
+
+    private static String join(LinkedList<String> parts) {
+        StringBuilder joined = new StringBuilder();
+        for (String part : parts) {
+            if (joined.length() > 0) {
+                joined.append(' ');
+            }
+            joined.append(part);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,214 @@
+package edu.uob.servers;
+
+import edu.uob.games.CommandEngine;
+import edu.uob.parsers.CommandLexer;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Decides whether a connection or command is let in, so a noisy client gets a cheap
+ * "server busy" reply instead of queueing forever in front of well-behaved players.
+ *
+ * <p>Three limits apply: open connections, commands admitted but not yet answered,
+ * and a token bucket per player name taken from the "player:" prefix.
+ *
+ * <p>Only valid player names get a bucket of their own; lines the controller would
+ * reject share one. A bucket left alone long enough to refill completely is
+ * forgotten, since a fresh one would be identical, so the map only holds players
+ * who were active recently. A rate of 0 turns the per-player limit off.
+ */
+public class AdmissionController {
+
+    public static final String BUSY_REPLY = "Server busy, please try again later.";
+
+    private final ServerConfig config;
+    private final ServerMetrics metrics;
+    private final AtomicInteger openConnections;
+    private final Semaphore pendingCommands;
+    private final Map<String, TokenBucket> buckets;
+    // Shared by every line without a valid player name
+    private final TokenBucket invalidNames;
+    private final long refillNanos;
+    private final AtomicLong lastSweep;
+
+    public AdmissionController(ServerConfig config, ServerMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        this.openConnections = new AtomicInteger();
+        this.pendingCommands = new Semaphore(config.getMaxPendingCommands());
+        this.buckets = new ConcurrentHashMap<>();
+        this.invalidNames = new TokenBucket(config.getCommandsPerSecond(), config.getCommandBurst());
+        this.refillNanos = AdmissionController.refillNanos(config);
+        this.lastSweep = new AtomicLong(System.nanoTime());
+    }
+
+    // How long an empty bucket takes to fill up again
+    private static long refillNanos(ServerConfig config) {
+        if (config.getCommandsPerSecond() <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.ceil(Math.max(1, config.getCommandBurst()) * 1.0e9 / config.getCommandsPerSecond());
+    }
+
+    /**
+     * @return true if the connection may be served; it must later be released with {@link #connectionClosed()}.
+     */
+    public boolean tryOpenConnection() {
+        if (this.openConnections.incrementAndGet() > this.config.getMaxConnections()) {
+            this.openConnections.decrementAndGet();
+            this.metrics.connectionRejected();
+            return false;
+        }
+        this.metrics.connectionAccepted();
+        return true;
+    }
+
+    public void connectionClosed() {
+        this.openConnections.decrementAndGet();
+    }
+
+    /**
+     * @param incomingCommand The raw "player: command" line.
+     * @return true if the command may run; it must later be released with {@link #commandFinished()}.
+     */
+    public boolean tryAdmitCommand(String incomingCommand) {
+        if (this.config.getCommandsPerSecond() > 0 && !this.bucketFor(incomingCommand).tryTake()) {
+            this.metrics.commandRateLimited();
+            return false;
+        }
+        if (!this.pendingCommands.tryAcquire()) {
+            this.metrics.commandRejectedBusy();
+            return false;
+        }
+        return true;
+    }
+
+    public void commandFinished() {
+        this.pendingCommands.release();
+        this.metrics.commandExecuted();
+    }
+
+    /**
+     * Runs the command if it is admitted; over-limit commands get the busy reply
+     * without ever reaching the engine.
+     *
+     * @param engine The engine to run admitted commands on.
+     * @param incomingCommand The raw "player: command" line.
+     * @return The engine's reply, or {@link #BUSY_REPLY}.
+     */
+    public String executeAdmitted(CommandEngine engine, String incomingCommand) {
+        if (!this.tryAdmitCommand(incomingCommand)) {
+            return BUSY_REPLY;
+        }
+        try {
+            return engine.execute(incomingCommand);
+        } finally {
+            this.commandFinished();
+        }
+    }
+
+    /**
+     * Like {@link #executeAdmitted}, but hands the command to the engine without waiting,
+     * so a caller serving many connections is not held up by any one command.
+     *
+     * @param engine The engine to submit admitted commands to.
+     * @param incomingCommand The raw "player: command" line.
+     * @return The engine's reply, or {@link #BUSY_REPLY} at once; the admission is released when it completes.
+     */
+    public CompletableFuture<String> submitAdmitted(CommandEngine engine, String incomingCommand) {
+        if (!this.tryAdmitCommand(incomingCommand)) {
+            return CompletableFuture.completedFuture(BUSY_REPLY);
+        }
+        CompletableFuture<String> reply;
+        try {
+            reply = engine.submit(incomingCommand);
+        } catch (RuntimeException e) {
+            this.commandFinished();
+            throw e;
+        }
+        return reply.whenComplete(new Release());
+    }
+
+    /**
+     * @return How many players currently have a bucket of their own.
+     */
+    public int getTrackedPlayers() {
+        return this.buckets.size();
+    }
+
+    private TokenBucket bucketFor(String incomingCommand) {
+        this.sweepIdleBuckets();
+        String playerName = CommandLexer.playerNameOf(incomingCommand);
+        if (playerName == null) {
+            return this.invalidNames;
+        }
+        TokenBucket bucket = this.buckets.get(playerName);
+        if (bucket == null) {
+            this.buckets.putIfAbsent(playerName, new TokenBucket(this.config.getCommandsPerSecond(), this.config.getCommandBurst()));
+            bucket = this.buckets.get(playerName);
+        }
+        return bucket;
+    }
+
+    // At most once per refill period, by whichever thread gets there first
+    private void sweepIdleBuckets() {
+        long now = System.nanoTime();
+        long last = this.lastSweep.get();
+        if (now - last < this.refillNanos || !this.lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Map.Entry<String, TokenBucket> entry : this.buckets.entrySet()) {
+            if (entry.getValue().isIdleSince(now - this.refillNanos)) {
+                // A command racing with the removal may take from the old bucket, which costs at most one burst
+                this.buckets.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Refills lazily on each take, so idle players cost nothing.
+     */
+    private static class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(int perSecond, int burst) {
+            this.tokensPerNano = perSecond / 1.0e9;
+            this.capacity = Math.max(1, burst);
+            this.tokens = this.capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        private synchronized boolean tryTake() {
+            long now = System.nanoTime();
+            this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefill) * this.tokensPerNano);
+            this.lastRefill = now;
+            if (this.tokens < 1.0) {
+                return false;
+            }
+            this.tokens -= 1.0;
+            return true;
+        }
+
+        // Unused since the given time, and therefore full again
+        private synchronized boolean isIdleSince(long since) {
+            return this.lastRefill - since <= 0;
+        }
+    }
+
+    // Gives the pending-command slot back once a submitted command has its reply
+    private class Release implements BiConsumer<String, Throwable> {
+        @Override
+        public void accept(String reply, Throwable failure) {
+            AdmissionController.this.commandFinished();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package edu.uob.servers;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces read, write and idle deadlines on blocking sockets. A deadline is armed
+ * before a blocking call and disarmed after it; if it fires first the socket is closed,
+ * which unblocks the call, and the timeout is counted in the server metrics.
+ *
+ * <p>Unlike SO_TIMEOUT, the deadline covers the whole line, so a client trickling one
+ * byte at a time cannot keep a connection (or the blocking accept loop) alive forever.
+ */
+public class ConnectionWatchdog {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = ConnectionWatchdog.newScheduler();
+
+    private final ServerConfig config;
+    private final ServerMetrics metrics;
+
+    public ConnectionWatchdog(ServerConfig config, ServerMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    private static ScheduledThreadPoolExecutor newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory());
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    // Waiting for a fresh connection's first line
+    public ScheduledFuture<?> armRead(Socket socket) {
+        return this.arm(socket, this.config.getReadTimeoutMillis(), Kind.READ);
+    }
+
+    // Waiting for the next line of a persistent session
+    public ScheduledFuture<?> armIdle(Socket socket) {
+        return this.arm(socket, this.config.getIdleTimeoutMillis(), Kind.IDLE);
+    }
+
+    // Writing a reply
+    public ScheduledFuture<?> armWrite(Socket socket) {
+        return this.arm(socket, this.config.getWriteTimeoutMillis(), Kind.WRITE);
+    }
+
+    public void disarm(ScheduledFuture<?> deadline) {
+        if (deadline != null) {
+            deadline.cancel(false);
+        }
+    }
+
+    /**
+     * @return The armed deadline, or null when that timeout is disabled.
+     */
+    private ScheduledFuture<?> arm(Socket socket, int timeoutMillis, Kind kind) {
+        if (timeoutMillis <= 0) {
+            return null;
+        }
+        return SCHEDULER.schedule(new Expiry(socket, kind), timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private enum Kind {
+        READ,
+        WRITE,
+        IDLE
+    }
+
+    private class Expiry implements Runnable {
+        private final Socket socket;
+        private final Kind kind;
+
+        private Expiry(Socket socket, Kind kind) {
+            this.socket = socket;
+            this.kind = kind;
+        }
+
+        @Override
+        public void run() {
+            if (this.kind == Kind.READ) {
+                ConnectionWatchdog.this.metrics.readTimedOut();
+            } else if (this.kind == Kind.WRITE) {
+                ConnectionWatchdog.this.metrics.writeTimedOut();
+            } else {
+                ConnectionWatchdog.this.metrics.idleTimedOut();
+            }
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+                System.out.println("Connection closed");
+            }
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "connection-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
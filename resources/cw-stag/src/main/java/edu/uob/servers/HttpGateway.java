@@ -0,0 +1,164 @@
+package edu.uob.servers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import edu.uob.games.CommandEngine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * HTTP/JSON endpoint for web frontends, built on the JDK's com.sun.net.httpserver.
+ *
+ * <p>POST {@link #COMMANDS_PATH} with a JSON array of commands, either "player: command"
+ * strings or {"player": "...", "command": "..."} objects, and the reply is a JSON array
+ * of reply strings in the same order. One request can carry commands for many players,
+ * so a gateway pays the HTTP overhead once per batch rather than once per command.
+ * Every reply carries a Content-Length, so HTTP/1.1 connections are kept alive.
+ *
+ * <p>Bodies are capped at {@link ServerConfig#getMaxRequestBytes()}: a request declaring a
+ * bigger Content-Length is refused with 413 before anything is read, and a chunked one is
+ * read only up to the cap, so an oversized batch never has to fit in memory.
+ */
+public class HttpGateway {
+
+    public static final String COMMANDS_PATH = "/commands";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private final CommandEngine engine;
+    private final AdmissionController admission;
+    private final ServerConfig config;
+
+    public HttpGateway(CommandEngine engine, AdmissionController admission, ServerConfig config) {
+        this.engine = engine;
+        this.admission = admission;
+        this.config = config;
+    }
+
+    /**
+     * Serves requests until the calling thread is interrupted.
+     *
+     * @param portNumber The port to listen on.
+     * @throws IOException If the HTTP server cannot be bound.
+     */
+    public void listenOn(int portNumber) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(portNumber), 0);
+        ExecutorService executor = ThreadPerConnectionListener.newPerConnectionExecutor();
+        server.setExecutor(executor);
+        server.createContext(COMMANDS_PATH, new CommandsHandler());
+        server.start();
+        StringBuilder portMsg = new StringBuilder();
+        portMsg.append("Server listening (HTTP) on port ");
+        portMsg.append(portNumber);
+        System.out.println(portMsg.toString());
+        try {
+            // The HTTP server runs on its own threads, this one only waits to be told to stop
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a parsed batch in order, each command through admission control.
+     */
+    private List<String> executeBatch(List<String> commands) {
+        List<String> replies = new LinkedList<>();
+        for (String command : commands) {
+            StringBuilder msgBuilder = new StringBuilder();
+            msgBuilder.append("Received message from ");
+            msgBuilder.append(command);
+            System.out.println(msgBuilder.toString());
+            replies.add(this.admission.executeAdmitted(this.engine, command));
+        }
+        return replies;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        ByteBuffer payload = StandardCharsets.UTF_8.encode(json);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, payload.remaining());
+        try (WritableByteChannel body = Channels.newChannel(exchange.getResponseBody())) {
+            while (payload.hasRemaining()) {
+                body.write(payload);
+            }
+        }
+    }
+
+    /**
+     * @return The body, or null if it is longer than the limit.
+     */
+    private static byte[] readAtMost(InputStream input, int limit) throws IOException {
+        byte[] body = input.readNBytes(limit);
+        if (input.read() != -1) {
+            return null;
+        }
+        return body;
+    }
+
+    private static boolean declaresMoreThan(HttpExchange exchange, int limit) {
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declared == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(declared.trim()) > limit;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private class CommandsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                int limit = HttpGateway.this.config.getMaxRequestBytes();
+                if (HttpGateway.declaresMoreThan(exchange, limit)) {
+                    // The unread body makes the server drop the connection once this reply is sent
+                    HttpGateway.respond(exchange, 413, JsonCommandCodec.encodeError("Request body too large"));
+                    return;
+                }
+                byte[] bodyBytes;
+                try (InputStream input = exchange.getRequestBody()) {
+                    // Drain the body, the connection can only be reused once it is consumed
+                    bodyBytes = HttpGateway.readAtMost(input, limit);
+                }
+                if (bodyBytes == null) {
+                    HttpGateway.respond(exchange, 413, JsonCommandCodec.encodeError("Request body too large"));
+                    return;
+                }
+                String requestBody = new String(bodyBytes, StandardCharsets.UTF_8);
+                if (!exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    HttpGateway.respond(exchange, 405, JsonCommandCodec.encodeError("Use POST with a JSON array of commands"));
+                    return;
+                }
+                List<String> commands;
+                try {
+                    commands = JsonCommandCodec.parseCommands(requestBody);
+                } catch (IllegalArgumentException e) {
+                    HttpGateway.respond(exchange, 400, JsonCommandCodec.encodeError(e.getMessage()));
+                    return;
+                }
+                if (commands.size() > HttpGateway.this.config.getMaxBatchCommands()) {
+                    HttpGateway.respond(exchange, 413, JsonCommandCodec.encodeError("Too many commands in one batch"));
+                    return;
+                }
+                HttpGateway.respond(exchange, 200, JsonCommandCodec.encodeReplies(HttpGateway.this.executeBatch(commands)));
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package edu.uob.servers;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Minimal JSON reader and writer for the HTTP gateway, covering only what the
+ * gateway exchanges: a request array of commands and a response array of replies.
+ *
+ * <p>Each request element is either a "player: command" string or an object
+ * {"player": "...", "command": "..."}. Any other JSON is rejected.
+ */
+final class JsonCommandCodec {
+
+    private final String text;
+    private int position;
+
+    private JsonCommandCodec(String text) {
+        this.text = text;
+        this.position = 0;
+    }
+
+    /**
+     * @param json The request body.
+     * @return The commands in request order, each as a "player: command" line.
+     * @throws IllegalArgumentException If the body is not a JSON array of commands.
+     */
+    static List<String> parseCommands(String json) {
+        JsonCommandCodec codec = new JsonCommandCodec(json);
+        codec.skipWhitespace();
+        List<String> commands = codec.readCommandArray();
+        codec.skipWhitespace();
+        if (codec.position != codec.text.length()) {
+            throw codec.error("Unexpected content after the command array");
+        }
+        return commands;
+    }
+
+    /**
+     * @return The replies as a JSON array of strings, in the same order.
+     */
+    static String encodeReplies(List<String> replies) {
+        StringBuilder jsonBuilder = new StringBuilder();
+        jsonBuilder.append('[');
+        boolean first = true;
+        for (String reply : replies) {
+            if (!first) {
+                jsonBuilder.append(',');
+            }
+            JsonCommandCodec.appendString(jsonBuilder, reply);
+            first = false;
+        }
+        jsonBuilder.append(']');
+        return jsonBuilder.toString();
+    }
+
+    /**
+     * @return A JSON object {"error": message}.
+     */
+    static String encodeError(String message) {
+        StringBuilder jsonBuilder = new StringBuilder();
+        jsonBuilder.append("{\"error\":");
+        JsonCommandCodec.appendString(jsonBuilder, message);
+        jsonBuilder.append('}');
+        return jsonBuilder.toString();
+    }
+
+    private List<String> readCommandArray() {
+        List<String> commands = new LinkedList<>();
+        this.expect('[');
+        this.skipWhitespace();
+        if (this.peek() == ']') {
+            this.position++;
+            return commands;
+        }
+        while (true) {
+            this.skipWhitespace();
+            commands.add(this.readCommand());
+            this.skipWhitespace();
+            char next = this.next();
+            if (next == ']') {
+                return commands;
+            }
+            if (next != ',') {
+                throw this.error("Expected ',' or ']' between commands");
+            }
+        }
+    }
+
+    private String readCommand() {
+        if (this.peek() == '"') {
+            return this.readString();
+        }
+        if (this.peek() == '{') {
+            return this.readCommandObject();
+        }
+        throw this.error("Expected a command string or object");
+    }
+
+    private String readCommandObject() {
+        String player = null;
+        String command = null;
+        this.expect('{');
+        this.skipWhitespace();
+        if (this.peek() != '}') {
+            while (true) {
+                this.skipWhitespace();
+                String key = this.readString();
+                this.skipWhitespace();
+                this.expect(':');
+                this.skipWhitespace();
+                String value = this.readString();
+                if (key.equals("player")) {
+                    player = value;
+                } else if (key.equals("command")) {
+                    command = value;
+                } else {
+                    throw this.error("Unknown command field");
+                }
+                this.skipWhitespace();
+                if (this.peek() != ',') {
+                    break;
+                }
+                this.position++;
+            }
+        }
+        this.expect('}');
+        if (player == null || command == null) {
+            throw this.error("Command objects need both \"player\" and \"command\"");
+        }
+        StringBuilder lineBuilder = new StringBuilder();
+        lineBuilder.append(player);
+        lineBuilder.append(": ");
+        lineBuilder.append(command);
+        return lineBuilder.toString();
+    }
+
+    private String readString() {
+        this.expect('"');
+        StringBuilder valueBuilder = new StringBuilder();
+        while (true) {
+            char next = this.next();
+            if (next == '"') {
+                return valueBuilder.toString();
+            }
+            if (next < 0x20) {
+                throw this.error("Unescaped control character in string");
+            }
+            if (next != '\\') {
+                valueBuilder.append(next);
+                continue;
+            }
+            char escaped = this.next();
+            if (escaped == '"' || escaped == '\\' || escaped == '/') {
+                valueBuilder.append(escaped);
+            } else if (escaped == 'b') {
+                valueBuilder.append('\b');
+            } else if (escaped == 'f') {
+                valueBuilder.append('\f');
+            } else if (escaped == 'n') {
+                valueBuilder.append('\n');
+            } else if (escaped == 'r') {
+                valueBuilder.append('\r');
+            } else if (escaped == 't') {
+                valueBuilder.append('\t');
+            } else if (escaped == 'u') {
+                valueBuilder.append(this.readUnicodeEscape());
+            } else {
+                throw this.error("Invalid escape sequence");
+            }
+        }
+    }
+
+    private char readUnicodeEscape() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(this.next(), 16);
+            if (digit == -1) {
+                throw this.error("Invalid unicode escape");
+            }
+            value = value * 16 | digit;
+        }
+        return (char) value;
+    }
+
+    private void skipWhitespace() {
+        while (this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position))) {
+            this.position++;
+        }
+    }
+
+    private char peek() {
+        if (this.position >= this.text.length()) {
+            throw this.error("Unexpected end of input");
+        }
+        return this.text.charAt(this.position);
+    }
+
+    private char next() {
+        char current = this.peek();
+        this.position++;
+        return current;
+    }
+
+    private void expect(char expected) {
+        if (this.next() != expected) {
+            StringBuilder messageBuilder = new StringBuilder();
+            messageBuilder.append("Expected '");
+            messageBuilder.append(expected);
+            messageBuilder.append("'");
+            throw this.error(messageBuilder.toString());
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(String.format("%s at offset %d", message, this.position));
+    }
+
+    private static void appendString(StringBuilder jsonBuilder, String value) {
+        jsonBuilder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                jsonBuilder.append('\\');
+                jsonBuilder.append(c);
+            } else if (c == '\n') {
+                jsonBuilder.append("\\n");
+            } else if (c == '\r') {
+                jsonBuilder.append("\\r");
+            } else if (c == '\t') {
+                jsonBuilder.append("\\t");
+            } else if (c < 0x20) {
+                jsonBuilder.append(String.format("\\u%04x", (int) c));
+            } else {
+                jsonBuilder.append(c);
+            }
+        }
+        jsonBuilder.append('"');
+    }
+}
@@ -0,0 +1,224 @@
+package edu.uob.servers;
+
+import edu.uob.games.CommandEngine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Wire protocol state for one connection, shared by every listener mode.
+ *
+ * <p>A legacy connection carries exactly one "player: command" line and is closed
+ * after the reply. Sending the {@link #SESSION_COMMAND} control line first keeps the
+ * connection open, and every following line is answered in turn. Listeners that
+ * serve one connection at a time refuse sessions, so one client cannot monopolize them.
+ *
+ * <p>Replies are END_OF_TRANSMISSION-terminated text by default. After
+ * "{@link #FRAMING_COMMAND} length" each reply is instead a four byte big-endian
+ * payload length followed by the UTF-8 payload, so clients can read it in one bulk read.
+ *
+ * <p>Without sessions, a connection may send one framing line before its command. A
+ * second one closes it, so control lines cannot hold a one-at-a-time listener open.
+ *
+ * <p>Blocking listeners call {@link #handleLine}, which waits for the engine on the
+ * connection's own thread. The selector listener calls {@link #submitLine} instead and
+ * writes the reply once it completes, so its event loop never waits for a command.
+ */
+public class ProtocolSession {
+
+    public static final String SESSION_COMMAND = "#session";
+    public static final String FRAMING_COMMAND = "#framing";
+    public static final int LENGTH_HEADER_BYTES = 4;
+    private static final char END_OF_TRANSMISSION = 4;
+    // Framing lines a connection without a session may send before its command
+    private static final int MAX_CONTROL_LINES_WITHOUT_SESSION = 1;
+
+    private final CommandEngine engine;
+    private final AdmissionController admission;
+    private final boolean sessionsAllowed;
+    private boolean persistent;
+    private boolean finished;
+    private boolean lengthFraming;
+    private int controlLines;
+
+    public ProtocolSession(CommandEngine engine, AdmissionController admission, boolean sessionsAllowed) {
+        this.engine = engine;
+        this.admission = admission;
+        this.sessionsAllowed = sessionsAllowed;
+        this.persistent = false;
+        this.finished = false;
+        this.lengthFraming = false;
+        this.controlLines = 0;
+    }
+
+    /**
+     * Runs one incoming line and returns the framed reply, ready to be written.
+     *
+     * @param incomingCommand A complete line, without its newline.
+     * @return The reply in the connection's current framing.
+     */
+    public ByteBuffer handleLine(String incomingCommand) {
+        ByteBuffer control = this.handleControlLine(incomingCommand);
+        if (control != null) {
+            return control;
+        }
+        this.commandReceived(incomingCommand);
+        return this.frame(this.admission.executeAdmitted(this.engine, incomingCommand));
+    }
+
+    /**
+     * Starts one incoming line without waiting for the engine. Replies must still be
+     * written in the order their lines arrived.
+     *
+     * @param incomingCommand A complete line, without its newline.
+     * @return The reply, framed as the connection was when the line arrived.
+     */
+    public PendingReply submitLine(String incomingCommand) {
+        ByteBuffer control = this.handleControlLine(incomingCommand);
+        if (control != null) {
+            return new PendingReply(control);
+        }
+        this.commandReceived(incomingCommand);
+        return new PendingReply(this.admission.submitAdmitted(this.engine, incomingCommand), this.lengthFraming);
+    }
+
+    /**
+     * @return The framed reply to a #session or #framing line, or null for a command.
+     */
+    private ByteBuffer handleControlLine(String incomingCommand) {
+        String trimmed = incomingCommand.trim().toLowerCase();
+        if (trimmed.startsWith(FRAMING_COMMAND)) {
+            if (!this.persistent) {
+                this.controlLines++;
+                if (this.controlLines > MAX_CONTROL_LINES_WITHOUT_SESSION) {
+                    this.finished = true;
+                    return this.frame("Too many control lines, send one command per connection.");
+                }
+            }
+            return this.switchFraming(trimmed.substring(FRAMING_COMMAND.length()).trim());
+        }
+        if (!trimmed.equals(SESSION_COMMAND)) {
+            return null;
+        }
+        if (this.sessionsAllowed) {
+            this.persistent = true;
+            return this.frame("Session started, send one command per line.");
+        }
+        this.finished = true;
+        return this.frame("Sessions are not supported by this listener, send one command per connection.");
+    }
+
+    private void commandReceived(String incomingCommand) {
+        StringBuilder msgBuilder = new StringBuilder();
+        msgBuilder.append("Received message from ");
+        msgBuilder.append(incomingCommand);
+        System.out.println(msgBuilder.toString());
+        if (!this.persistent) {
+            this.finished = true;
+        }
+    }
+
+    /**
+     * @return true once the connection should be closed after the last reply is flushed.
+     */
+    public boolean isFinished() {
+        return this.finished;
+    }
+
+    public boolean isPersistent() {
+        return this.persistent;
+    }
+
+    /**
+     * @return The busy reply for a connection turned away before any session state exists.
+     */
+    public static ByteBuffer busyReply() {
+        return ProtocolSession.frameEndOfTransmission(AdmissionController.BUSY_REPLY);
+    }
+
+    /**
+     * The acknowledgement still uses the old framing, the switch applies from the next reply.
+     */
+    private ByteBuffer switchFraming(String framing) {
+        ByteBuffer acknowledgement;
+        if (framing.equals("length")) {
+            acknowledgement = this.frame("Framing set to length.");
+            this.lengthFraming = true;
+        } else if (framing.equals("eot")) {
+            acknowledgement = this.frame("Framing set to eot.");
+            this.lengthFraming = false;
+        } else {
+            acknowledgement = this.frame("Unknown framing, use length or eot.");
+        }
+        return acknowledgement;
+    }
+
+    private ByteBuffer frame(String result) {
+        return ProtocolSession.frame(result, this.lengthFraming);
+    }
+
+    private static ByteBuffer frame(String result, boolean lengthFraming) {
+        if (lengthFraming) {
+            ByteBuffer payload = StandardCharsets.UTF_8.encode(result);
+            ByteBuffer framed = ByteBuffer.allocate(LENGTH_HEADER_BYTES + payload.remaining());
+            framed.putInt(payload.remaining());
+            framed.put(payload);
+            framed.flip();
+            return framed;
+        }
+        return ProtocolSession.frameEndOfTransmission(result);
+    }
+
+    private static ByteBuffer frameEndOfTransmission(String result) {
+        StringBuilder responseBuilder = new StringBuilder();
+        responseBuilder.append(result);
+        responseBuilder.append("\n");
+        responseBuilder.append(END_OF_TRANSMISSION);
+        responseBuilder.append("\n");
+        return StandardCharsets.UTF_8.encode(responseBuilder.toString());
+    }
+
+    /**
+     * A reply that may still be running on the engine, with the framing it will be sent in.
+     */
+    static final class PendingReply {
+        private final CompletableFuture<String> result;
+        private final boolean lengthFraming;
+        private final ByteBuffer framed;
+
+        private PendingReply(ByteBuffer framed) {
+            this.result = null;
+            this.lengthFraming = false;
+            this.framed = framed;
+        }
+
+        private PendingReply(CompletableFuture<String> result, boolean lengthFraming) {
+            this.result = result;
+            this.lengthFraming = lengthFraming;
+            this.framed = null;
+        }
+
+        boolean isDone() {
+            return this.result == null || this.result.isDone();
+        }
+
+        /**
+         * @return The future to wait on, or null if the reply was ready at once.
+         */
+        CompletableFuture<String> getResult() {
+            return this.result;
+        }
+
+        /**
+         * @return The framed reply; only call once it is done.
+         * @throws java.util.concurrent.CompletionException If the command failed on the engine.
+         */
+        ByteBuffer frame() {
+            if (this.result == null) {
+                return this.framed;
+            }
+            return ProtocolSession.frame(this.result.join(), this.lengthFraming);
+        }
+    }
+}
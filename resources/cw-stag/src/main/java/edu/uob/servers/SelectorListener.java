@@ -0,0 +1,351 @@
+package edu.uob.servers;
+
+import edu.uob.games.CommandEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Non-blocking listener built on a single Selector event loop.
+ * Every open connection is multiplexed on the calling thread, so one slow
+ * client no longer holds up everybody waiting in the accept backlog.
+ * Read, write and idle timeouts are enforced by sweeping the open connections
+ * whenever the selector wakes up.
+ *
+ * <p>Commands are submitted to the engine rather than executed, so the event loop never
+ * waits for one: an engine with its own threads (the sequencer's writer, the actor pool)
+ * completes the reply, wakes the selector, and the loop writes whatever replies are ready
+ * at the head of each connection, keeping every connection's replies in arrival order.
+ */
+public class SelectorListener {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final long MIN_SWEEP_MILLIS = 10;
+
+    private final CommandEngine engine;
+    private final AdmissionController admission;
+    private final ServerConfig config;
+    private final ServerMetrics metrics;
+    // Connections with a reply that completed off the event loop, waiting to be collected
+    private final Queue<SelectionKey> repliesReady;
+
+    public SelectorListener(CommandEngine engine, AdmissionController admission, ServerConfig config, ServerMetrics metrics) {
+        this.engine = engine;
+        this.admission = admission;
+        this.config = config;
+        this.metrics = metrics;
+        this.repliesReady = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Runs the event loop until the calling thread is interrupted.
+     *
+     * @param portNumber The port to listen on.
+     * @throws IOException If the selector or server channel cannot be opened.
+     */
+    public void listenOn(int portNumber) throws IOException {
+        try (Selector selector = Selector.open();
+        ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(portNumber));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            StringBuilder portMsg = new StringBuilder();
+            portMsg.append("Server listening (non-blocking) on port ");
+            portMsg.append(portNumber);
+            System.out.println(portMsg.toString());
+            long sweepMillis = this.sweepIntervalMillis();
+            long nextSweep = System.nanoTime();
+            while (!Thread.interrupted()) {
+                selector.select(sweepMillis);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    this.handleKey(selector, key);
+                }
+                this.collectReadyReplies();
+                long now = System.nanoTime();
+                if (sweepMillis > 0 && now >= nextSweep) {
+                    this.sweepTimeouts(selector, now);
+                    nextSweep = now + TimeUnit.MILLISECONDS.toNanos(sweepMillis);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return How often to check deadlines, or 0 (block forever) when every timeout is disabled.
+     */
+    private long sweepIntervalMillis() {
+        long shortest = Long.MAX_VALUE;
+        if (this.config.getReadTimeoutMillis() > 0) {
+            shortest = Math.min(shortest, this.config.getReadTimeoutMillis());
+        }
+        if (this.config.getWriteTimeoutMillis() > 0) {
+            shortest = Math.min(shortest, this.config.getWriteTimeoutMillis());
+        }
+        if (this.config.getIdleTimeoutMillis() > 0) {
+            shortest = Math.min(shortest, this.config.getIdleTimeoutMillis());
+        }
+        if (shortest == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(MIN_SWEEP_MILLIS, shortest / 4);
+    }
+
+    /**
+     * Reclaims connections that stalled mid-line, stopped reading their replies,
+     * or sat idle between commands for too long.
+     */
+    private void sweepTimeouts(Selector selector, long now) {
+        for (SelectionKey key : selector.keys()) {
+            if (!key.isValid() || !(key.attachment() instanceof Connection)) {
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            if (SelectorListener.expired(connection.writePendingSince, this.config.getWriteTimeoutMillis(), now)) {
+                this.metrics.writeTimedOut();
+                this.closeConnection(key);
+            } else if (SelectorListener.expired(connection.partialSince, this.config.getReadTimeoutMillis(), now)
+                    || (connection.awaitingFirstLine && SelectorListener.expired(connection.lastActivity, this.config.getReadTimeoutMillis(), now))) {
+                this.metrics.readTimedOut();
+                this.closeConnection(key);
+            } else if (connection.pendingWrites.isEmpty() && connection.inFlight.isEmpty() && connection.partialSince == 0
+                    && SelectorListener.expired(connection.lastActivity, this.config.getIdleTimeoutMillis(), now)) {
+                this.metrics.idleTimedOut();
+                this.closeConnection(key);
+            }
+        }
+    }
+
+    private static boolean expired(long since, int timeoutMillis, long now) {
+        return since != 0 && timeoutMillis > 0 && now - since > TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Dispatches one ready key; an IO failure only closes that connection.
+     */
+    private void handleKey(Selector selector, SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                this.acceptConnection(selector, (ServerSocketChannel) key.channel());
+                return;
+            }
+            if (key.isReadable()) {
+                this.readConnection(key);
+            }
+            if (key.isValid() && key.isWritable()) {
+                this.writeConnection(key);
+            }
+        } catch (IOException e) {
+            System.out.println("Connection closed");
+            if (key.channel() instanceof SocketChannel) {
+                this.closeConnection(key);
+            }
+        }
+    }
+
+    private void acceptConnection(Selector selector, ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (!this.admission.tryOpenConnection()) {
+            // Best effort busy reply, the socket buffer of a fresh connection has room for it
+            channel.configureBlocking(false);
+            channel.write(ProtocolSession.busyReply());
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(new ProtocolSession(this.engine, this.admission, true)));
+        System.out.println("Connection established");
+    }
+
+    private void readConnection(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        connection.readBuffer.clear();
+        int count = channel.read(connection.readBuffer);
+        if (count == -1) {
+            this.closeConnection(key);
+            return;
+        }
+        connection.readBuffer.flip();
+        while (connection.readBuffer.hasRemaining() && !connection.closeAfterWrite) {
+            byte next = connection.readBuffer.get();
+            if (next == '\n') {
+                this.handleLine(key, connection, connection.takeLine());
+            } else if (next != '\r') {
+                connection.lineBuffer.write(next);
+            }
+        }
+        // The read deadline runs from the first byte of a line until its newline
+        if (connection.lineBuffer.size() == 0) {
+            connection.partialSince = 0;
+        } else if (connection.partialSince == 0) {
+            connection.partialSince = System.nanoTime();
+        }
+    }
+
+    /**
+     * Legacy connections close once their single reply is flushed,
+     * persistent sessions go on reading the lines already buffered.
+     */
+    private void handleLine(SelectionKey key, Connection connection, String incomingCommand) {
+        connection.lastActivity = System.nanoTime();
+        connection.awaitingFirstLine = false;
+        ProtocolSession.PendingReply reply = connection.session.submitLine(incomingCommand);
+        connection.inFlight.add(reply);
+        connection.closeAfterWrite = connection.session.isFinished();
+        if (!reply.isDone()) {
+            reply.getResult().whenComplete(new ReplyReady(key));
+        }
+        this.collectReplies(key, connection);
+    }
+
+    private void collectReadyReplies() {
+        SelectionKey key = this.repliesReady.poll();
+        while (key != null) {
+            if (key.isValid()) {
+                this.collectReplies(key, (Connection) key.attachment());
+            }
+            key = this.repliesReady.poll();
+        }
+    }
+
+    /**
+     * Moves the finished replies at the head of the connection to its write queue.
+     * A reply behind one still running waits, so replies go out in arrival order.
+     */
+    private void collectReplies(SelectionKey key, Connection connection) {
+        while (!connection.inFlight.isEmpty() && connection.inFlight.getFirst().isDone()) {
+            ByteBuffer framed;
+            try {
+                framed = connection.inFlight.removeFirst().frame();
+            } catch (CompletionException e) {
+                System.out.println("Command failed, closing the connection");
+                this.closeConnection(key);
+                return;
+            }
+            if (connection.pendingWrites.isEmpty()) {
+                connection.writePendingSince = System.nanoTime();
+            }
+            connection.pendingWrites.add(framed);
+        }
+        this.updateInterest(key, connection);
+    }
+
+    // Reads stop once the connection is finishing, writes are only wanted with something to write
+    private void updateInterest(SelectionKey key, Connection connection) {
+        int ops = 0;
+        if (!connection.closeAfterWrite) {
+            ops = SelectionKey.OP_READ;
+        }
+        if (!connection.pendingWrites.isEmpty()) {
+            ops = ops | SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    private void writeConnection(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        while (!connection.pendingWrites.isEmpty()) {
+            ByteBuffer head = connection.pendingWrites.getFirst();
+            channel.write(head);
+            if (head.hasRemaining()) {
+                // Socket buffer is full, wait for the next OP_WRITE
+                return;
+            }
+            connection.pendingWrites.removeFirst();
+        }
+        connection.writePendingSince = 0;
+        if (connection.closeAfterWrite && connection.inFlight.isEmpty()) {
+            this.closeConnection(key);
+        } else {
+            this.updateInterest(key, connection);
+        }
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        if (!key.channel().isOpen()) {
+            return;
+        }
+        this.admission.connectionClosed();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            System.out.println("Connection closed");
+        }
+    }
+
+    /**
+     * Runs on whichever thread completes a reply: it only queues the connection and wakes
+     * the event loop, which does the framing and writing.
+     */
+    private class ReplyReady implements BiConsumer<String, Throwable> {
+        private final SelectionKey key;
+
+        private ReplyReady(SelectionKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public void accept(String reply, Throwable failure) {
+            SelectorListener.this.repliesReady.add(this.key);
+            this.key.selector().wakeup();
+        }
+    }
+
+    /**
+     * Per-connection buffers, attached to the channel's SelectionKey.
+     */
+    private static class Connection {
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream();
+        private final LinkedList<ByteBuffer> pendingWrites = new LinkedList<>();
+        // Replies in arrival order, some possibly still running on the engine
+        private final LinkedList<ProtocolSession.PendingReply> inFlight = new LinkedList<>();
+        private final ProtocolSession session;
+        private boolean closeAfterWrite;
+        private boolean awaitingFirstLine;
+        private long lastActivity;
+        private long partialSince;
+        private long writePendingSince;
+
+        private Connection(ProtocolSession session) {
+            this.session = session;
+            this.closeAfterWrite = false;
+            this.awaitingFirstLine = true;
+            this.lastActivity = System.nanoTime();
+            this.partialSince = 0;
+            this.writePendingSince = 0;
+        }
+
+        private String takeLine() {
+            String line = this.lineBuffer.toString(StandardCharsets.UTF_8);
+            this.lineBuffer.reset();
+            return line;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package edu.uob.servers;
+
+/**
+ * Tunable limits for the socket listeners and the HTTP gateway. Defaults can be overridden with
+ * system properties, e.g. -Dstag.maxConnections=200.
+ */
+public class ServerConfig {
+
+    private int maxConnections;
+    private int maxPendingCommands;
+    private int commandsPerSecond;
+    private int commandBurst;
+    private int readTimeoutMillis;
+    private int writeTimeoutMillis;
+    private int idleTimeoutMillis;
+    private int maxBatchCommands;
+    private int maxRequestBytes;
+    private String engine;
+
+    public ServerConfig() {
+        this.maxConnections = 1024;
+        this.maxPendingCommands = 256;
+        this.commandsPerSecond = 20;
+        this.commandBurst = 40;
+        this.readTimeoutMillis = 10000;
+        this.writeTimeoutMillis = 10000;
+        this.idleTimeoutMillis = 300000;
+        this.maxBatchCommands = 256;
+        this.maxRequestBytes = 1048576;
+        this.engine = "serial";
+    }
+
+    /**
+     * @return A config where every limit can be overridden by a "stag." system property.
+     */
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig config = new ServerConfig();
+        config.setMaxConnections(Integer.getInteger("stag.maxConnections", config.getMaxConnections()));
+        config.setMaxPendingCommands(Integer.getInteger("stag.maxPendingCommands", config.getMaxPendingCommands()));
+        config.setCommandsPerSecond(Integer.getInteger("stag.commandsPerSecond", config.getCommandsPerSecond()));
+        config.setCommandBurst(Integer.getInteger("stag.commandBurst", config.getCommandBurst()));
+        config.setReadTimeoutMillis(Integer.getInteger("stag.readTimeoutMillis", config.getReadTimeoutMillis()));
+        config.setWriteTimeoutMillis(Integer.getInteger("stag.writeTimeoutMillis", config.getWriteTimeoutMillis()));
+        config.setIdleTimeoutMillis(Integer.getInteger("stag.idleTimeoutMillis", config.getIdleTimeoutMillis()));
+        config.setMaxBatchCommands(Integer.getInteger("stag.maxBatchCommands", config.getMaxBatchCommands()));
+        config.setMaxRequestBytes(Integer.getInteger("stag.maxRequestBytes", config.getMaxRequestBytes()));
+        config.setEngine(System.getProperty("stag.engine", config.getEngine()));
+        return config;
+    }
+
+    // Maximum number of connections open at once, further ones get a busy reply
+    public int getMaxConnections() {
+        return this.maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    // Maximum number of commands admitted but not yet answered, across all connections
+    public int getMaxPendingCommands() {
+        return this.maxPendingCommands;
+    }
+
+    public void setMaxPendingCommands(int maxPendingCommands) {
+        this.maxPendingCommands = maxPendingCommands;
+    }
+
+    // Sustained token-bucket refill rate for each player name, 0 disables the per-player limit
+    public int getCommandsPerSecond() {
+        return this.commandsPerSecond;
+    }
+
+    public void setCommandsPerSecond(int commandsPerSecond) {
+        this.commandsPerSecond = commandsPerSecond;
+    }
+
+    // Token-bucket capacity, how many commands a player may send in a burst
+    public int getCommandBurst() {
+        return this.commandBurst;
+    }
+
+    public void setCommandBurst(int commandBurst) {
+        this.commandBurst = commandBurst;
+    }
+
+    // How long a client may take to deliver a complete line once it starts one (or after connecting), 0 disables
+    public int getReadTimeoutMillis() {
+        return this.readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    // How long a reply may take to be flushed to a client that stopped reading, 0 disables
+    public int getWriteTimeoutMillis() {
+        return this.writeTimeoutMillis;
+    }
+
+    public void setWriteTimeoutMillis(int writeTimeoutMillis) {
+        this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    // How long a persistent session may sit between commands, 0 disables
+    public int getIdleTimeoutMillis() {
+        return this.idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(int idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    // Largest command array the HTTP gateway runs in one request
+    public int getMaxBatchCommands() {
+        return this.maxBatchCommands;
+    }
+
+    public void setMaxBatchCommands(int maxBatchCommands) {
+        this.maxBatchCommands = maxBatchCommands;
+    }
+
+    // Largest request body the HTTP gateway reads, bigger ones are refused before the batch is parsed
+    public int getMaxRequestBytes() {
+        return this.maxRequestBytes;
+    }
+
+    public void setMaxRequestBytes(int maxRequestBytes) {
+        this.maxRequestBytes = maxRequestBytes;
+    }
+
+    // How commands are executed: "serial" (one at a time), "sharded" (concurrently, locked per location)
+    // "actor" (one mailbox per location on a shared worker pool) or "sequencer" (a single writer thread
+    // fed through a ring buffer, the best fit for busy worlds where locks would mostly contend)
+    public String getEngine() {
+        return this.engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+}
@@ -0,0 +1,104 @@
+package edu.uob.servers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters shared by every listener, safe to bump from any thread.
+ */
+public class ServerMetrics {
+
+    private final AtomicLong connectionsAccepted = new AtomicLong();
+    private final AtomicLong connectionsRejected = new AtomicLong();
+    private final AtomicLong commandsExecuted = new AtomicLong();
+    private final AtomicLong commandsRejectedBusy = new AtomicLong();
+    private final AtomicLong commandsRateLimited = new AtomicLong();
+    private final AtomicLong readTimeouts = new AtomicLong();
+    private final AtomicLong writeTimeouts = new AtomicLong();
+    private final AtomicLong idleTimeouts = new AtomicLong();
+
+    public void connectionAccepted() {
+        this.connectionsAccepted.incrementAndGet();
+    }
+
+    public void connectionRejected() {
+        this.connectionsRejected.incrementAndGet();
+    }
+
+    public void commandExecuted() {
+        this.commandsExecuted.incrementAndGet();
+    }
+
+    public void commandRejectedBusy() {
+        this.commandsRejectedBusy.incrementAndGet();
+    }
+
+    public void commandRateLimited() {
+        this.commandsRateLimited.incrementAndGet();
+    }
+
+    public void readTimedOut() {
+        this.readTimeouts.incrementAndGet();
+    }
+
+    public void writeTimedOut() {
+        this.writeTimeouts.incrementAndGet();
+    }
+
+    public void idleTimedOut() {
+        this.idleTimeouts.incrementAndGet();
+    }
+
+    public long getConnectionsAccepted() {
+        return this.connectionsAccepted.get();
+    }
+
+    public long getConnectionsRejected() {
+        return this.connectionsRejected.get();
+    }
+
+    public long getCommandsExecuted() {
+        return this.commandsExecuted.get();
+    }
+
+    public long getCommandsRejectedBusy() {
+        return this.commandsRejectedBusy.get();
+    }
+
+    public long getCommandsRateLimited() {
+        return this.commandsRateLimited.get();
+    }
+
+    public long getReadTimeouts() {
+        return this.readTimeouts.get();
+    }
+
+    public long getWriteTimeouts() {
+        return this.writeTimeouts.get();
+    }
+
+    public long getIdleTimeouts() {
+        return this.idleTimeouts.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder metricsBuilder = new StringBuilder();
+        metricsBuilder.append("connections accepted=");
+        metricsBuilder.append(this.getConnectionsAccepted());
+        metricsBuilder.append(" rejected=");
+        metricsBuilder.append(this.getConnectionsRejected());
+        metricsBuilder.append(", commands executed=");
+        metricsBuilder.append(this.getCommandsExecuted());
+        metricsBuilder.append(" busy=");
+        metricsBuilder.append(this.getCommandsRejectedBusy());
+        metricsBuilder.append(" rateLimited=");
+        metricsBuilder.append(this.getCommandsRateLimited());
+        metricsBuilder.append(", timeouts read=");
+        metricsBuilder.append(this.getReadTimeouts());
+        metricsBuilder.append(" write=");
+        metricsBuilder.append(this.getWriteTimeouts());
+        metricsBuilder.append(" idle=");
+        metricsBuilder.append(this.getIdleTimeouts());
+        return metricsBuilder.toString();
+    }
+}
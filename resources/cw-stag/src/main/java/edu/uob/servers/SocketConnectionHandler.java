@@ -0,0 +1,106 @@
+package edu.uob.servers;
+
+import edu.uob.games.CommandEngine;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Serves one accepted socket with the line protocol: read a command,
+ * run it through the engine, write the END_OF_TRANSMISSION-terminated reply.
+ * Persistent sessions, when allowed, keep reading lines until the client hangs up.
+ * Pipelined lines are answered in arrival order and flushed together once the
+ * input buffer runs dry, instead of one write per reply. Every blocking read and write
+ * runs under a watchdog deadline, so a stalled client cannot hold its thread forever.
+ * Shared by the blocking accept loop and the thread-per-connection listener.
+ */
+public class SocketConnectionHandler {
+
+    private final CommandEngine engine;
+    private final AdmissionController admission;
+    private final ConnectionWatchdog watchdog;
+    private final boolean sessionsAllowed;
+
+    public SocketConnectionHandler(CommandEngine engine, AdmissionController admission, ConnectionWatchdog watchdog, boolean sessionsAllowed) {
+        this.engine = engine;
+        this.admission = admission;
+        this.watchdog = watchdog;
+        this.sessionsAllowed = sessionsAllowed;
+    }
+
+    /**
+     * Handles the connection and closes the socket when done.
+     *
+     * @param s The accepted client socket.
+     * @throws IOException If any IO related operation fails.
+     */
+    public void serve(Socket s) throws IOException {
+        try (s;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream()));
+        BufferedOutputStream output = new BufferedOutputStream(s.getOutputStream());
+        WritableByteChannel writer = Channels.newChannel(output)) {
+            System.out.println("Connection established");
+            ProtocolSession session = new ProtocolSession(this.engine, this.admission, this.sessionsAllowed);
+            String incomingCommand = this.readLine(reader, this.watchdog.armRead(s));
+            while (incomingCommand != null) {
+                ByteBuffer response = session.handleLine(incomingCommand);
+                // Pipelined lines already buffered are answered before a single flush
+                boolean flush = session.isFinished() || !reader.ready();
+                this.write(writer, output, response, flush, this.watchdog.armWrite(s));
+                if (session.isFinished()) {
+                    return;
+                }
+                incomingCommand = this.readLine(reader, this.watchdog.armIdle(s));
+            }
+        }
+    }
+
+    private String readLine(BufferedReader reader, ScheduledFuture<?> deadline) throws IOException {
+        try {
+            return reader.readLine();
+        } finally {
+            this.watchdog.disarm(deadline);
+        }
+    }
+
+    private void write(WritableByteChannel writer, BufferedOutputStream output, ByteBuffer response, boolean flush, ScheduledFuture<?> deadline) throws IOException {
+        try {
+            while (response.hasRemaining()) {
+                writer.write(response);
+            }
+            if (flush) {
+                output.flush();
+            }
+        } finally {
+            this.watchdog.disarm(deadline);
+        }
+    }
+
+    /**
+     * Turns a connection away with the busy reply, without reading from it.
+     *
+     * @param s The accepted client socket, closed on return.
+     */
+    public void reject(Socket s) {
+        try (s;
+        WritableByteChannel writer = Channels.newChannel(s.getOutputStream())) {
+            ByteBuffer response = ProtocolSession.busyReply();
+            while (response.hasRemaining()) {
+                writer.write(response);
+            }
+        } catch (IOException e) {
+            System.out.println("Connection closed");
+        }
+    }
+
+    public AdmissionController getAdmission() {
+        return this.admission;
+    }
+}
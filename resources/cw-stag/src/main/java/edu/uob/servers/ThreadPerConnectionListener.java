@@ -0,0 +1,80 @@
+package edu.uob.servers;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Accepts connections and serves each one on its own thread, so slow or idle
+ * clients never hold up the accept loop. On a Java 21+ runtime every connection
+ * gets a virtual thread; older runtimes fall back to a cached platform-thread pool.
+ */
+public class ThreadPerConnectionListener {
+
+    private final SocketConnectionHandler handler;
+
+    public ThreadPerConnectionListener(SocketConnectionHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Runs the accept loop until the calling thread is interrupted.
+     *
+     * @param portNumber The port to listen on.
+     * @throws IOException If the server socket cannot be opened.
+     */
+    public void listenOn(int portNumber) throws IOException {
+        ExecutorService executor = ThreadPerConnectionListener.newPerConnectionExecutor();
+        try (ServerSocket s = new ServerSocket(portNumber)) {
+            StringBuilder portMsg = new StringBuilder();
+            portMsg.append("Server listening (thread per connection) on port ");
+            portMsg.append(portNumber);
+            System.out.println(portMsg.toString());
+            while (!Thread.interrupted()) {
+                Socket socket = s.accept();
+                if (this.handler.getAdmission().tryOpenConnection()) {
+                    executor.execute(new ConnectionTask(socket));
+                } else {
+                    this.handler.reject(socket);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Looks up Executors.newVirtualThreadPerTaskExecutor reflectively, so the
+     * build can keep targeting Java 17 while still using virtual threads when present.
+     */
+    static ExecutorService newPerConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private class ConnectionTask implements Runnable {
+        private final Socket socket;
+
+        private ConnectionTask(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ThreadPerConnectionListener.this.handler.serve(this.socket);
+            } catch (IOException e) {
+                System.out.println("Connection closed");
+            } finally {
+                ThreadPerConnectionListener.this.handler.getAdmission().connectionClosed();
+            }
+        }
+    }
+}
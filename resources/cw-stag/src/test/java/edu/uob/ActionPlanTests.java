@@ -0,0 +1,113 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.actions.ActionPlan;
+import edu.uob.actions.CustomAction;
+import edu.uob.entities.Artefact;
+import edu.uob.entities.Furniture;
+import edu.uob.entities.GameEntity;
+import edu.uob.entities.Location;
+import edu.uob.games.GameWorld;
+import edu.uob.games.PlayerState;
+import edu.uob.parsers.EntityParser;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+class ActionPlanTests {
+
+    private GameWorld world;
+    private Location forest;
+    private PlayerState simon;
+
+    @BeforeEach
+    void setup() {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        world = new EntityParser().parseEntities(entitiesFile);
+        forest = world.getLocation("forest");
+        simon = new PlayerState("simon", forest);
+    }
+
+    private CustomAction action(String consumed, String produced) {
+        CustomAction action = new CustomAction();
+        action.addTriggers("test");
+        if (consumed != null) {
+            action.addConsumed(consumed);
+        }
+        action.addProduced(produced);
+        world.addAction(action);
+        return action;
+    }
+
+    @Test
+    void testPlansAreCompiledOncePerAction() {
+        CustomAction chop = action("tree", "log");
+        ActionPlan plan = world.getActionPlan(chop);
+        assertSame(chop, plan.getAction());
+        assertSame(plan, world.getActionPlan(chop), "Commands should share one plan");
+        assertTrue(plan.getPathSources().isEmpty());
+
+        CustomAction dig = action(null, "forest->cellar");
+        assertNotSame(plan, world.getActionPlan(chop), "Adding an action should recompile the plans");
+        assertEquals(Set.of(forest), world.getActionPlan(dig).getPathSources());
+    }
+
+    @Test
+    void testProducedEntitiesAreFreshCopiesOfTheTemplate() {
+        GameEntity storedLog = world.findEntityByName("log");
+        ActionPlan plan = world.getActionPlan(action("tree", "log"));
+        plan.apply(simon, forest);
+        assertFalse(forest.hasEntity("tree"));
+        List<GameEntity> logs = forest.getEntitiesNamed("log");
+        assertEquals(1, logs.size());
+        assertNotSame(storedLog, logs.get(0));
+        assertEquals(storedLog.getDescription(), logs.get(0).getDescription());
+
+        plan.apply(simon, forest);
+        assertEquals(2, forest.getEntitiesNamed("log").size(), "Each run should produce a new log");
+    }
+
+    @Test
+    void testPathProductionsUseTheResolvedSource() {
+        ActionPlan plan = world.getActionPlan(action(null, "Forest -> Cellar"));
+        plan.apply(simon, world.getLocation("cabin"));
+        assertTrue(forest.hasPathTo("cellar"));
+        assertFalse(world.getLocation("cabin").hasPathTo("cellar"));
+    }
+
+    @Test
+    void testCarriedItemsAreConsumedFirst() {
+        Artefact carriedKey = new Artefact("key", "A carried key");
+        simon.addToInventory(carriedKey);
+        world.getActionPlan(action("key", "shovel")).apply(simon, forest);
+        assertFalse(simon.getInventory().contains(carriedKey));
+        assertTrue(forest.hasEntity("key"), "The key lying here should be left alone");
+        assertEquals(1, simon.getInventory().size(), "The shovel goes straight into the inventory");
+        assertEquals("shovel", simon.getInventory().iterator().next().getName());
+    }
+
+    @Test
+    void testPlansAreRecompiledWhenAMissingTemplateArrives() {
+        CustomAction conjure = action(null, "statue");
+        ActionPlan generic = world.getActionPlan(conjure);
+        assertEquals(Set.of("statue"), generic.getMissingTemplates());
+        generic.apply(simon, forest);
+        assertTrue(forest.getEntitiesNamed("statue").get(0) instanceof Artefact);
+        forest.removeEntity(forest.getEntity("statue"));
+
+        world.getLocation("cabin").addEntity(new Furniture("statue", "A marble statue"));
+        ActionPlan recompiled = world.getActionPlan(conjure);
+        assertNotSame(generic, recompiled);
+        assertTrue(recompiled.getMissingTemplates().isEmpty());
+        recompiled.apply(simon, forest);
+        GameEntity statue = forest.getEntity("statue");
+        assertTrue(statue instanceof Furniture);
+        assertEquals("A marble statue", statue.getDescription());
+    }
+}
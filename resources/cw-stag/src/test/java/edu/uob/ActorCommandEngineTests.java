@@ -0,0 +1,188 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.entities.Artefact;
+import edu.uob.entities.GameEntity;
+import edu.uob.entities.Location;
+import edu.uob.games.ActorCommandEngine;
+import edu.uob.games.CommandEngine;
+import edu.uob.games.GameController;
+import edu.uob.games.GameState;
+import edu.uob.games.GameWorld;
+import edu.uob.games.SerialCommandEngine;
+import edu.uob.parsers.ActionParser;
+import edu.uob.parsers.EntityParser;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class ActorCommandEngineTests {
+
+    private GameWorld world;
+    private GameState state;
+    private CommandEngine engine;
+
+    @BeforeEach
+    void setup() {
+        world = loadWorld();
+        state = new GameState();
+        engine = new ActorCommandEngine(new GameController(world, state), world, state);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    private GameWorld loadWorld() {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        GameWorld loaded = new EntityParser().parseEntities(entitiesFile);
+        for (CustomAction action : new ActionParser().parseAction(actionsFile)) {
+            loaded.addAction(action);
+        }
+        return loaded;
+    }
+
+    // Runs every script on its own thread, all starting together
+    private List<List<String>> runConcurrently(List<List<String>> scripts) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(scripts.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (List<String> script : scripts) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                List<String> replies = new ArrayList<>();
+                for (String command : script) {
+                    replies.add(engine.execute(command));
+                }
+                return replies;
+            }));
+        }
+        start.countDown();
+        List<List<String>> results = new ArrayList<>();
+        for (Future<List<String>> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    @Test
+    void testConcurrentGetsOnlyHandOutOneAxe() throws Exception {
+        List<List<String>> scripts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            scripts.add(List.of("player" + i + ": get axe"));
+        }
+        int winners = 0;
+        for (List<String> replies : runConcurrently(scripts)) {
+            if (replies.get(0).contains("picked up")) {
+                winners++;
+            }
+        }
+        assertEquals(1, winners, "Exactly one player should have picked up the axe");
+    }
+
+    @Test
+    void testArtefactsAreConservedUnderContention() throws Exception {
+        List<String> verbs = List.of("get axe", "get potion", "get key", "drop axe", "drop potion", "drop key",
+                "goto forest", "goto cabin", "look", "inv", "chop tree", "drink potion");
+        Random random = new Random(42);
+        List<List<String>> scripts = new ArrayList<>();
+        for (int p = 0; p < 8; p++) {
+            List<String> script = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                script.add("player" + p + ": " + verbs.get(random.nextInt(verbs.size())));
+            }
+            scripts.add(script);
+        }
+        runConcurrently(scripts);
+        // Every artefact that existed (and was not drunk or produced) must exist exactly once
+        int axes = 0;
+        int keys = 0;
+        for (Location location : world.getLocations()) {
+            for (Artefact artefact : location.getArtefacts()) {
+                axes += artefact.getName().equals("axe") ? 1 : 0;
+                keys += artefact.getName().equals("key") ? 1 : 0;
+            }
+        }
+        for (int p = 0; p < 8; p++) {
+            for (GameEntity item : state.getOrCreatePlayerState("player" + p, null).getInventory()) {
+                axes += item.getName().equals("axe") ? 1 : 0;
+                keys += item.getName().equals("key") ? 1 : 0;
+            }
+        }
+        assertEquals(1, axes, "The axe was lost or duplicated");
+        assertEquals(1, keys, "The key was lost or duplicated");
+    }
+
+    @Test
+    void testIndependentPlayersMatchSerialExecution() throws Exception {
+        List<List<String>> scripts = List.of(
+                List.of("alice: goto forest", "alice: get key", "alice: goto cabin", "alice: inv", "alice: drop key", "alice: inv"),
+                List.of("bob: get potion", "bob: health", "bob: drink potion", "bob: inv", "bob: get axe", "bob: inv"));
+        List<List<String>> concurrent = runConcurrently(scripts);
+
+        GameWorld serialWorld = loadWorld();
+        GameState serialState = new GameState();
+        CommandEngine serial = new SerialCommandEngine(new GameController(serialWorld, serialState));
+        for (int i = 0; i < scripts.size(); i++) {
+            for (int j = 0; j < scripts.get(i).size(); j++) {
+                assertEquals(serial.execute(scripts.get(i).get(j)), concurrent.get(i).get(j));
+            }
+        }
+    }
+
+    @Test
+    void testPipelinedCommandsOfOnePlayerRunInOrder() throws Exception {
+        // Submitted without waiting: each command must see the effects of the one before, across actors
+        List<CompletableFuture<String>> replies = new ArrayList<>();
+        for (String command : List.of("goto forest", "get key", "goto cabin", "drop key", "get key", "inv")) {
+            replies.add(engine.submit("alice: " + command));
+        }
+        assertEquals("You moved to forest.", replies.get(0).get(5, TimeUnit.SECONDS));
+        assertTrue(replies.get(1).get(5, TimeUnit.SECONDS).contains("picked up"));
+        assertEquals("You moved to cabin.", replies.get(2).get(5, TimeUnit.SECONDS));
+        assertTrue(replies.get(3).get(5, TimeUnit.SECONDS).contains("dropped"));
+        assertTrue(replies.get(4).get(5, TimeUnit.SECONDS).contains("picked up"));
+        assertEquals("You are carrying: key", replies.get(5).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSingleWorkerServesEveryLocation() throws Exception {
+        engine.close();
+        engine = new ActorCommandEngine(new GameController(world, state), world, state, 1);
+        List<List<String>> scripts = List.of(
+                List.of("alice: goto forest", "alice: chop tree", "alice: look"),
+                List.of("bob: get axe", "bob: goto forest", "bob: chop tree", "bob: inv"));
+        List<List<String>> results = runConcurrently(scripts);
+        assertTrue(results.get(1).get(3).contains("axe"));
+    }
+
+    @Test
+    void testClosedEngineFailsNewCommands() throws Exception {
+        // Closed while idle, so no actor is mid-turn and could still pick the commands up
+        engine.close();
+        CompletableFuture<String> local = engine.submit("alice: look");
+        CompletableFuture<String> exclusive = engine.submit("bob: goto forest");
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> local.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertThrows(ExecutionException.class, () -> exclusive.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,136 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uob.servers.AdmissionController;
+import edu.uob.servers.ServerConfig;
+import edu.uob.servers.ServerMetrics;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+class AdmissionControllerTests {
+
+    private ServerConfig config(int connections, int pending, int perSecond, int burst) {
+        ServerConfig config = new ServerConfig();
+        config.setMaxConnections(connections);
+        config.setMaxPendingCommands(pending);
+        config.setCommandsPerSecond(perSecond);
+        config.setCommandBurst(burst);
+        return config;
+    }
+
+    @Test
+    void testTokenBucketLimitsEachPlayerSeparately() {
+        ServerMetrics metrics = new ServerMetrics();
+        AdmissionController admission = new AdmissionController(config(10, 100, 1, 3), metrics);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admission.tryAdmitCommand("bot: look"));
+            admission.commandFinished();
+        }
+        assertFalse(admission.tryAdmitCommand("bot: look"), "Burst should be exhausted");
+        assertTrue(admission.tryAdmitCommand("simon: look"), "Other players keep their own budget");
+        admission.commandFinished();
+        assertEquals(1, metrics.getCommandsRateLimited());
+    }
+
+    @Test
+    void testOnlyValidPlayerNamesGetTheirOwnBucket() {
+        AdmissionController admission = new AdmissionController(config(10, 100, 1, 1), new ServerMetrics());
+        assertTrue(admission.tryAdmitCommand("no colon at all"));
+        admission.commandFinished();
+        assertFalse(admission.tryAdmitCommand("b@d name: look"), "Invalid lines should share one bucket");
+        assertEquals(0, admission.getTrackedPlayers());
+        assertTrue(admission.tryAdmitCommand("Simon: look"));
+        admission.commandFinished();
+        assertEquals(1, admission.getTrackedPlayers());
+    }
+
+    @Test
+    void testRefilledBucketsAreForgotten() throws InterruptedException {
+        // A 200 ms refill period, far longer than the loop, so nothing is swept until the sleep
+        AdmissionController admission = new AdmissionController(config(10, 100, 5, 1), new ServerMetrics());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(admission.tryAdmitCommand("bot" + i + ": look"));
+            admission.commandFinished();
+        }
+        assertEquals(50, admission.getTrackedPlayers());
+        TimeUnit.MILLISECONDS.sleep(450);
+        assertTrue(admission.tryAdmitCommand("simon: look"));
+        admission.commandFinished();
+        assertEquals(1, admission.getTrackedPlayers(), "Idle, full buckets should have been swept");
+    }
+
+    @Test
+    void testZeroRateDisablesThePlayerLimit() {
+        AdmissionController admission = new AdmissionController(config(10, 100, 0, 1), new ServerMetrics());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(admission.tryAdmitCommand("bot: look"));
+            admission.commandFinished();
+        }
+        assertEquals(0, admission.getTrackedPlayers());
+    }
+
+    @Test
+    void testPendingCommandsAreBounded() {
+        ServerMetrics metrics = new ServerMetrics();
+        AdmissionController admission = new AdmissionController(config(10, 2, 100, 100), metrics);
+        assertTrue(admission.tryAdmitCommand("a: look"));
+        assertTrue(admission.tryAdmitCommand("b: look"));
+        assertFalse(admission.tryAdmitCommand("c: look"), "Third pending command should be turned away");
+        admission.commandFinished();
+        assertTrue(admission.tryAdmitCommand("c: look"));
+        assertEquals(1, metrics.getCommandsRejectedBusy());
+    }
+
+    @Test
+    void testConnectionLimit() {
+        AdmissionController admission = new AdmissionController(config(1, 10, 10, 10), new ServerMetrics());
+        assertTrue(admission.tryOpenConnection());
+        assertFalse(admission.tryOpenConnection());
+        admission.connectionClosed();
+        assertTrue(admission.tryOpenConnection());
+    }
+
+    @Test
+    void testServerRepliesBusyWhenConnectionsAreExhausted() throws Exception {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        GameServer server = new GameServer(entitiesFile, actionsFile);
+        server.setServerConfig(config(1, 10, 10, 10));
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        int serverPort = port;
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.nonBlockingListenOn(serverPort);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        serverThread.start();
+        TimeUnit.MILLISECONDS.sleep(300);
+        try (Socket first = new Socket("localhost", port)) {
+            assertTrue(first.isConnected());
+            TimeUnit.MILLISECONDS.sleep(100);
+            try (Socket second = new Socket("localhost", port);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(second.getInputStream()))) {
+                assertEquals(AdmissionController.BUSY_REPLY, reader.readLine());
+            }
+        } finally {
+            serverThread.interrupt();
+            serverThread.join(1000);
+        }
+        assertEquals(1, server.getMetrics().getConnectionsRejected());
+    }
+}
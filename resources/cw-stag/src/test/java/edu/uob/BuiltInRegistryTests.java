@@ -0,0 +1,105 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.games.BuiltInHandler;
+import edu.uob.games.BuiltInRegistry;
+import edu.uob.games.GameController;
+import edu.uob.games.GameState;
+import edu.uob.games.GameWorld;
+import edu.uob.games.PlayerState;
+import edu.uob.parsers.ActionParser;
+import edu.uob.parsers.CommandLexer;
+import edu.uob.parsers.EntityParser;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+class BuiltInRegistryTests {
+
+    private GameController controller;
+    private BuiltInRegistry builtIns;
+
+    @BeforeEach
+    void setup() {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        GameWorld world = new EntityParser().parseEntities(entitiesFile);
+        for (CustomAction action : new ActionParser().parseAction(actionsFile)) {
+            world.addAction(action);
+        }
+        controller = new GameController(world, new GameState());
+        builtIns = controller.getBuiltIns();
+    }
+
+    private String verbOf(String line) {
+        BuiltInRegistry.Match match = builtIns.match(CommandLexer.lex(line));
+        if (match == null) {
+            return null;
+        }
+        return match.getVerb();
+    }
+
+    @Test
+    void testVerbsAndSynonymsAreFoundAnywhere() {
+        assertEquals("get", verbOf("simon: get axe"));
+        assertEquals("get", verbOf("simon: please could you get the axe"));
+        assertEquals("fight", verbOf("simon: attack elf"));
+        assertEquals("inventory", verbOf("simon: show my inv"));
+        assertEquals("look", verbOf("simon: look around"));
+        assertNull(verbOf("simon: open trapdoor with key"));
+    }
+
+    @Test
+    void testArgumentsAreTheOtherWords() {
+        BuiltInRegistry.Match match = builtIns.match(CommandLexer.lex("simon: the axe get please"));
+        assertEquals("axe", match.getArguments());
+        assertNull(verbOf("simon: get"), "A bare get is left to the custom actions");
+    }
+
+    @Test
+    void testShorthandsOnlyCountAsTheFirstWord() {
+        assertEquals("inventory", verbOf("simon: invent"));
+        assertEquals("health", verbOf("simon: hp please"));
+        assertEquals("health", verbOf("simon: healthcheck"));
+        assertNull(verbOf("simon: open invisible door"));
+    }
+
+    @Test
+    void testDispatchRunsTheHandler() {
+        assertTrue(controller.handleCommand("simon: please get the axe").contains("axe"));
+        assertTrue(controller.handleCommand("simon: inv").contains("axe"));
+        assertTrue(controller.handleCommand("simon: forest goto").contains("forest"));
+    }
+
+    @Test
+    void testNewBuiltInsCanBeRegistered() {
+        builtIns.register("wave", false, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return "You wave, " + player.getName();
+            }
+        });
+        builtIns.addSynonym("greet", "wave");
+        assertEquals("You wave, simon", controller.handleCommand("simon: greet everyone"));
+        assertThrows(IllegalArgumentException.class, () -> builtIns.addSynonym("hop", "jump"));
+    }
+
+    @Test
+    void testOnlyTheGamesOwnHandlersAreStandard() {
+        assertTrue(builtIns.match(CommandLexer.lex("simon: inv")).isStandard());
+        builtIns.register("look", false, new BuiltInHandler() {
+            @Override
+            public String handle(PlayerState player, String arguments) {
+                return "Replaced look";
+            }
+        });
+        assertFalse(builtIns.match(CommandLexer.lex("simon: look")).isStandard(),
+                "A replaced verb must not keep the standard footprint");
+        assertEquals("Replaced look", controller.handleCommand("simon: look"));
+    }
+}
@@ -0,0 +1,51 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.entities.Artefact;
+import edu.uob.entities.CanonicalNames;
+import edu.uob.entities.Furniture;
+import edu.uob.parsers.ActionParser;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+class CanonicalNamesTests {
+
+    @Test
+    void testSpellingsShareOneCanonicalInstance() {
+        String canonical = CanonicalNames.intern("Lantern ");
+        assertEquals("lantern", canonical);
+        assertSame(canonical, CanonicalNames.intern(new String("lantern")));
+        assertSame(canonical, CanonicalNames.lookup("LANTERN"));
+        assertSame(canonical, new Artefact("lantern", "A lantern").getCanonicalName());
+    }
+
+    @Test
+    void testLookupNeverAddsPlayerWords() {
+        assertNull(CanonicalNames.lookup("qwertyuiop"));
+        assertNull(CanonicalNames.lookup("qwertyuiop"), "A failed lookup must not intern the word");
+    }
+
+    @Test
+    void testEntitiesCompareByReference() {
+        Furniture tree = new Furniture("Tree", "A tall tree");
+        assertEquals("Tree", tree.getName(), "The display name keeps its spelling");
+        assertTrue(tree.isNamed(CanonicalNames.lookup("tree")));
+        assertFalse(tree.isNamed(CanonicalNames.lookup("trapdoor")));
+        assertFalse(tree.isNamed(null));
+    }
+
+    @Test
+    void testActionFilesAreInternedWhileParsing() {
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        for (CustomAction action : new ActionParser().parseAction(actionsFile)) {
+            for (String subject : action.getSubjects()) {
+                assertSame(CanonicalNames.lookup(subject), subject);
+            }
+        }
+    }
+}
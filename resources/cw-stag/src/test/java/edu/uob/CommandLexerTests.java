@@ -0,0 +1,56 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uob.entities.CanonicalNames;
+import edu.uob.parsers.Command;
+import edu.uob.parsers.CommandLexer;
+
+import java.util.List;
+
+class CommandLexerTests {
+
+    @Test
+    void testPlayerNameIsCheckedAndLowercased() {
+        assertEquals("simon", CommandLexer.lex("  Simon : look").getPlayerName());
+        assertNull(CommandLexer.lex("si mon: look").getPlayerName());
+        assertNull(CommandLexer.lex("s!mon: look").getPlayerName());
+        assertNull(CommandLexer.lex(": look").getPlayerName());
+        assertTrue(CommandLexer.lex(": look").hasPlayerPrefix());
+        assertFalse(CommandLexer.lex("simon look").hasPlayerPrefix());
+    }
+
+    @Test
+    void testWhitespaceRunsSeparateLowercasedTokens() {
+        Command command = CommandLexer.lex("simon:\t Get   the\nAXE  ");
+        assertEquals(List.of("get", "the", "axe"), command.getTokens());
+        assertEquals("get the axe", command.getText());
+        assertEquals("get", command.getVerb());
+        assertEquals("the axe", command.getArguments());
+    }
+
+    @Test
+    void testEmptyCommandsHaveNoVerb() {
+        assertEquals("", CommandLexer.lex("simon:   ").getVerb());
+        assertEquals("", CommandLexer.lex("simon: look").getArguments());
+        assertEquals("inv", CommandLexer.lex("simon: inv").getText(), "Shorthands are left to the built-in registry");
+    }
+
+    @Test
+    void testFillerWordsAreDroppedLikeWordBoundaries() {
+        Command command = CommandLexer.lexCommand("Please chop the tree with-the axe, thereby");
+        assertEquals("chop tree - axe, thereby", command.getActionText());
+        assertEquals(List.of("chop", "tree", "-", "axe,", "thereby"), command.getWords());
+    }
+
+    @Test
+    void testMentionsAreCanonicalKnownNames() {
+        String canonical = CanonicalNames.intern("Lexerlamp");
+        Command command = CommandLexer.lexCommand("light the LEXERLAMP zzqqxx");
+        assertTrue(command.getMentions().contains(canonical));
+        assertSame(canonical, command.getMentions().get(command.getMentions().indexOf(canonical)));
+        assertFalse(command.getMentions().contains("zzqqxx"));
+    }
+}
@@ -0,0 +1,112 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uob.entities.Artefact;
+import edu.uob.entities.CanonicalNames;
+import edu.uob.entities.GameEntity;
+import edu.uob.entities.Location;
+import edu.uob.games.EntityIndex;
+import edu.uob.games.GameState;
+import edu.uob.games.PlayerState;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+class CompactWorldModelTests {
+
+    private List<String> namesOf(Iterable<GameEntity> entities) {
+        List<String> names = new ArrayList<>();
+        for (GameEntity entity : entities) {
+            names.add(entity.getName());
+        }
+        return names;
+    }
+
+    @Test
+    void testNamesHaveDenseStableIds() {
+        int id = CanonicalNames.idOf(CanonicalNames.intern("Compass"));
+        assertTrue(id >= 0);
+        assertEquals(id, CanonicalNames.idOf("COMPASS"));
+        assertEquals("compass", CanonicalNames.nameOf(id));
+        assertEquals(id, new Artefact("compass", "A brass compass").getNameId());
+        assertEquals(-1, CanonicalNames.idOf("nosuchthinganywhere"));
+        assertNull(CanonicalNames.nameOf(-1));
+    }
+
+    @Test
+    void testPathsAreBitsReadAsNames() {
+        Location cabin = new Location("cabin", "A log cabin");
+        cabin.addPath("forest");
+        cabin.addPath("Cellar");
+        cabin.addPath("forest");
+        Set<String> paths = cabin.getPaths();
+        assertEquals(2, paths.size());
+        assertEquals(Set.of("forest", "cellar"), paths);
+        assertTrue(cabin.hasPathTo("CELLAR"));
+        assertFalse(cabin.hasPathTo("nosuchplaceanywhere"));
+
+        Iterator<String> iterator = paths.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().equals("forest")) {
+                iterator.remove();
+            }
+        }
+        assertEquals(Set.of("cellar"), cabin.getPaths());
+        assertTrue(paths.add("forest"), "Adding through the view should add a path");
+        assertTrue(cabin.hasPathTo("forest"));
+    }
+
+    @Test
+    void testInventoryKeepsArrivalOrder() {
+        PlayerState simon = new PlayerState("simon", null);
+        assertTrue(simon.getInventory().isEmpty());
+        List<Artefact> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Artefact item = new Artefact("item" + i, "Item number " + i);
+            items.add(item);
+            simon.addToInventory(item);
+        }
+        simon.addToInventory(items.get(0));
+        assertEquals(10, simon.getInventory().size());
+        simon.removeFromInventory(items.get(3));
+        assertFalse(simon.getInventory().contains(items.get(3)));
+        assertEquals(List.of("item0", "item1", "item2", "item4", "item5", "item6", "item7", "item8", "item9"),
+                namesOf(simon.getInventory()));
+
+        // Same-named items are still distinct entities
+        Artefact twin = new Artefact("item0", "Another item zero");
+        simon.addToInventory(twin);
+        assertTrue(simon.getInventory().contains(twin));
+        assertEquals(10, simon.getInventory().size());
+
+        for (GameEntity item : new ArrayList<>(simon.getInventory())) {
+            simon.removeFromInventory(item);
+        }
+        assertTrue(simon.getInventory().isEmpty());
+    }
+
+    @Test
+    void testInventoryCanOnlyChangeThroughThePlayer() {
+        GameState state = new GameState();
+        EntityIndex index = new EntityIndex();
+        state.setEntityIndex(index);
+        PlayerState simon = state.getOrCreatePlayerState("simon", null);
+        Artefact axe = new Artefact("axe", "A sharp axe");
+        simon.addToInventory(axe);
+        assertSame(simon, index.getCarrierOf(axe));
+
+        Iterator<GameEntity> iterator = simon.getInventory().iterator();
+        iterator.next();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertThrows(UnsupportedOperationException.class, () -> simon.getInventory().clear());
+        assertSame(simon, index.getCarrierOf(axe));
+
+        simon.removeFromInventory(axe);
+        assertNull(index.getCarrierOf(axe), "The index should follow removals made through the player");
+    }
+}
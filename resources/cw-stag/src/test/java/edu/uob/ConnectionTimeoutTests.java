@@ -0,0 +1,147 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.servers.ServerConfig;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+class ConnectionTimeoutTests {
+
+    private GameServer server;
+    private Thread serverThread;
+    private int port;
+
+    @BeforeEach
+    void setup() throws IOException {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        server = new GameServer(entitiesFile, actionsFile);
+        ServerConfig config = new ServerConfig();
+        config.setReadTimeoutMillis(200);
+        config.setWriteTimeoutMillis(1000);
+        config.setIdleTimeoutMillis(400);
+        server.setServerConfig(config);
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (serverThread != null) {
+            serverThread.interrupt();
+            serverThread.join(1000);
+        }
+    }
+
+    private void start(String mode) throws InterruptedException {
+        serverThread = new Thread(() -> {
+            try {
+                if (mode.equals("nio")) {
+                    server.nonBlockingListenOn(port);
+                } else if (mode.equals("threaded")) {
+                    server.threadPerConnectionListenOn(port);
+                } else {
+                    server.blockingListenOn(port);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        serverThread.start();
+        TimeUnit.MILLISECONDS.sleep(300);
+    }
+
+    // Waits for the server to hang up, failing if it takes far longer than the timeout
+    private void assertClosedByServer(Socket socket) throws IOException {
+        socket.setSoTimeout(3000);
+        InputStream input = socket.getInputStream();
+        assertEquals(-1, input.read(), "Server should have closed the stalled connection");
+    }
+
+    private String sendOneShot(String command) throws IOException {
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            writer.write(command);
+            writer.newLine();
+            writer.flush();
+            StringBuilder response = new StringBuilder();
+            String line = reader.readLine();
+            while (line != null && !line.contains(String.valueOf((char) 4))) {
+                response.append(line).append("\n");
+                line = reader.readLine();
+            }
+            return response.toString();
+        }
+    }
+
+    private void assertPartialLineTimesOut() throws IOException {
+        try (Socket stalled = new Socket("localhost", port)) {
+            stalled.getOutputStream().write("simon: lo".getBytes());
+            stalled.getOutputStream().flush();
+            assertClosedByServer(stalled);
+        }
+        assertTrue(server.getMetrics().getReadTimeouts() >= 1);
+        // The listener is still serving everybody else afterwards
+        assertTrue(sendOneShot("sion: look").contains("cabin"));
+    }
+
+    @Test
+    void testBlockingListenerReclaimsStalledClient() throws Exception {
+        start("blocking");
+        assertPartialLineTimesOut();
+    }
+
+    @Test
+    void testNonBlockingListenerReclaimsStalledClient() throws Exception {
+        start("nio");
+        assertPartialLineTimesOut();
+    }
+
+    @Test
+    void testThreadPerConnectionListenerReclaimsStalledClient() throws Exception {
+        start("threaded");
+        assertPartialLineTimesOut();
+    }
+
+    private void assertIdleSessionTimesOut() throws IOException {
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            writer.write("#session\n");
+            writer.flush();
+            assertTrue(reader.readLine().startsWith("Session started"));
+            assertNotNull(reader.readLine());
+            assertClosedByServer(socket);
+        }
+        assertTrue(server.getMetrics().getIdleTimeouts() >= 1);
+    }
+
+    @Test
+    void testNonBlockingIdleSessionTimesOut() throws Exception {
+        start("nio");
+        assertIdleSessionTimesOut();
+    }
+
+    @Test
+    void testThreadPerConnectionIdleSessionTimesOut() throws Exception {
+        start("threaded");
+        assertIdleSessionTimesOut();
+    }
+}
@@ -0,0 +1,112 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.entities.Artefact;
+import edu.uob.entities.GameEntity;
+import edu.uob.games.EntityIndex;
+import edu.uob.games.GameController;
+import edu.uob.games.GameState;
+import edu.uob.games.GameWorld;
+import edu.uob.games.PlayerState;
+import edu.uob.parsers.ActionParser;
+import edu.uob.parsers.EntityParser;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Set;
+
+class EntityIndexTests {
+
+    private GameWorld world;
+    private GameState state;
+    private GameController controller;
+    private EntityIndex index;
+
+    @BeforeEach
+    void setup() {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        world = new EntityParser().parseEntities(entitiesFile);
+        for (CustomAction action : new ActionParser().parseAction(actionsFile)) {
+            world.addAction(action);
+        }
+        state = new GameState();
+        controller = new GameController(world, state);
+        index = world.getEntityIndex();
+    }
+
+    private GameEntity only(String name) {
+        Set<GameEntity> named = index.getEntitiesNamed(name);
+        assertEquals(1, named.size(), "Expected exactly one " + name);
+        return named.iterator().next();
+    }
+
+    @Test
+    void testLoadedEntitiesAreIndexedByLocation() {
+        assertEquals("cabin", index.getLocationOf(only("axe")).getName());
+        assertEquals("forest", index.getLocationOf(only("key")).getName());
+        assertEquals("storeroom", index.getLocationOf(only("log")).getName());
+        assertEquals("forest", index.getLocationOf(only("TREE")).getName(), "Lookups should ignore case");
+        assertTrue(index.getEntitiesNamed("unicorn").isEmpty());
+    }
+
+    @Test
+    void testGetAndDropMoveTheContainer() {
+        GameEntity axe = only("axe");
+        controller.handleCommand("simon: get axe");
+        PlayerState simon = state.getOrCreatePlayerState("simon", null);
+        assertSame(simon, index.getCarrierOf(axe));
+        assertNull(index.getLocationOf(axe));
+        assertNull(world.findEntityByName("axe"), "Carried items are not found in the world");
+
+        controller.handleCommand("simon: goto forest");
+        controller.handleCommand("simon: drop axe");
+        assertNull(index.getCarrierOf(axe));
+        assertEquals("forest", index.getLocationOf(axe).getName());
+        assertSame(axe, world.findEntityByName("axe"));
+    }
+
+    @Test
+    void testConsumedAndProducedEntitiesAreTracked() {
+        controller.handleCommand("simon: get axe");
+        controller.handleCommand("simon: goto forest");
+        controller.handleCommand("simon: chop tree");
+        assertTrue(index.getEntitiesNamed("tree").isEmpty(), "The consumed tree should be gone");
+        assertEquals(2, index.getEntitiesNamed("log").size());
+        // The fresh log in the forest wins over the storeroom template
+        assertEquals("forest", index.getLocationOf(world.findEntityByName("log")).getName());
+
+        controller.handleCommand("simon: get key");
+        controller.handleCommand("simon: goto cabin");
+        controller.handleCommand("simon: open trapdoor");
+        assertTrue(index.getEntitiesNamed("key").isEmpty(), "The consumed key should be gone");
+    }
+
+    @Test
+    void testDeathDropsCarriedItems() {
+        controller.handleCommand("simon: get axe");
+        controller.handleCommand("simon: goto forest");
+        GameEntity axe = only("axe");
+        for (int i = 0; i < 3; i++) {
+            controller.handleCommand("simon: fight elf");
+        }
+        assertNull(index.getCarrierOf(axe));
+        assertEquals("forest", index.getLocationOf(axe).getName());
+    }
+
+    @Test
+    void testPlayersRegisteredWithItemsAreIndexed() {
+        Artefact coin = new Artefact("coin", "A silver coin");
+        PlayerState mia = new PlayerState("mia", world.getLocation("cabin"));
+        mia.addToInventory(coin);
+        state.addPlayer(mia);
+        assertSame(mia, index.getCarrierOf(coin));
+        mia.removeFromInventory(coin);
+        assertTrue(index.getEntitiesNamed("coin").isEmpty());
+    }
+}
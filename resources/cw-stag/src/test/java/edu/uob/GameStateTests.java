@@ -0,0 +1,164 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uob.entities.Location;
+import edu.uob.games.GameState;
+import edu.uob.games.PlayerState;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class GameStateTests {
+
+    @Test
+    void testConcurrentFirstLoginsCreateOnePlayerEach() throws Exception {
+        GameState state = new GameState();
+        Location cabin = new Location("cabin", "A log cabin");
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<PlayerState>>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                List<PlayerState> seen = new ArrayList<>();
+                for (int i = 0; i < 2000; i++) {
+                    seen.add(state.getOrCreatePlayerState("player" + i, cabin));
+                }
+                return seen;
+            }));
+        }
+        start.countDown();
+        List<List<PlayerState>> results = new ArrayList<>();
+        for (Future<List<PlayerState>> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        for (int i = 0; i < 2000; i++) {
+            Set<PlayerState> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (List<PlayerState> seen : results) {
+                instances.add(seen.get(i));
+            }
+            assertEquals(1, instances.size(), "Racing logins produced more than one PlayerState");
+        }
+        assertEquals(2000, state.getAllPlayerStatesAt(cabin).size());
+    }
+
+    private Set<String> namesAt(GameState state, Location location) {
+        Set<String> names = new HashSet<>();
+        for (PlayerState player : state.getAllPlayerStatesAt(location)) {
+            names.add(player.getName());
+        }
+        return names;
+    }
+
+    @Test
+    void testLocationIndexFollowsMoves() {
+        GameState state = new GameState();
+        Location cabin = new Location("cabin", "A log cabin");
+        Location forest = new Location("forest", "A dark forest");
+        PlayerState zoe = state.getOrCreatePlayerState("zoe", cabin);
+        state.getOrCreatePlayerState("adam", cabin);
+        assertEquals(Set.of("zoe", "adam"), namesAt(state, cabin));
+        assertTrue(namesAt(state, forest).isEmpty());
+
+        zoe.setLocation(forest);
+        assertEquals(Set.of("adam"), namesAt(state, cabin));
+        assertEquals(Set.of("zoe"), namesAt(state, forest));
+
+        // Players added directly are indexed too, and a replaced player leaves its room
+        PlayerState mia = new PlayerState("mia", forest);
+        state.addPlayer(mia);
+        assertEquals(Set.of("zoe", "mia"), namesAt(state, forest));
+        state.addPlayer(new PlayerState("mia", cabin));
+        assertEquals(Set.of("zoe"), namesAt(state, forest));
+        assertEquals(Set.of("adam", "mia"), namesAt(state, cabin));
+        mia.setLocation(cabin);
+        assertEquals(2, state.getAllPlayerStatesAt(cabin).size(), "A replaced player must no longer be indexed");
+    }
+
+    @Test
+    void testLookListsPlayersAfterGotoAndDeath() {
+        GameServer server = new GameServer(Paths.get("config", "basic-entities.dot").toAbsolutePath().toFile(),
+                Paths.get("config", "basic-actions.xml").toAbsolutePath().toFile());
+        server.handleCommand("simon: look");
+        server.handleCommand("sion: goto forest");
+        assertFalse(server.handleCommand("simon: look").contains("sion"));
+        assertTrue(server.handleCommand("sion: look").contains("forest"));
+        server.handleCommand("simon: goto forest");
+        assertTrue(server.handleCommand("sion: look").contains("Player simon"));
+        for (int i = 0; i < 3; i++) {
+            server.handleCommand("simon: fight elf");
+        }
+        // simon died and was sent back to the cabin
+        assertFalse(server.handleCommand("sion: look").contains("Player simon"));
+        server.handleCommand("sion: goto cabin");
+        assertTrue(server.handleCommand("sion: look").contains("Player simon"));
+    }
+
+    @Test
+    void testPlayersAreListedInRegistrationOrder() {
+        GameState state = new GameState();
+        Location cabin = new Location("cabin", "A log cabin");
+        state.getOrCreatePlayerState("zoe", cabin);
+        state.getOrCreatePlayerState("adam", cabin);
+        state.getOrCreatePlayerState("mia", cabin);
+        state.getOrCreatePlayerState("adam", cabin);
+        List<String> names = new ArrayList<>();
+        for (PlayerState player : state.getAllPlayerStatesAt(cabin)) {
+            names.add(player.getName());
+        }
+        assertEquals(List.of("zoe", "adam", "mia"), names);
+    }
+
+    @Test
+    void testRacingLoginsOnlySeeAttachedPlayers() throws Exception {
+        GameState state = new GameState();
+        Location cabin = new Location("cabin", "A log cabin");
+        Location forest = new Location("forest", "A dark forest");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    // Whichever thread gets the player moves it straight away
+                    state.getOrCreatePlayerState("player" + i, cabin).setLocation(forest);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertTrue(state.getAllPlayerStatesAt(cabin).isEmpty(), "A move was lost or indexed before the player was attached");
+        assertEquals(500, state.getAllPlayerStatesAt(forest).size());
+    }
+
+    @Test
+    void testReAddingAPlayerLeavesOneIndexEntry() {
+        GameState state = new GameState();
+        Location cabin = new Location("cabin", "A log cabin");
+        PlayerState simon = new PlayerState("simon", cabin);
+        state.addPlayer(simon);
+        state.addPlayer(simon);
+        assertEquals(1, state.getAllPlayerStatesAt(cabin).size());
+        simon.setLocation(new Location("forest", "A dark forest"));
+        assertTrue(state.getAllPlayerStatesAt(cabin).isEmpty());
+    }
+}
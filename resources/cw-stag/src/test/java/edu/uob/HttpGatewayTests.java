@@ -0,0 +1,154 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+class HttpGatewayTests {
+
+    private GameServer server;
+    private Thread serverThread;
+    private int port;
+    private HttpClient client;
+
+    @BeforeEach
+    void setup() throws IOException, InterruptedException {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        server = new GameServer(entitiesFile, actionsFile);
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        serverThread = new Thread(() -> {
+            try {
+                server.httpListenOn(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        serverThread.start();
+        TimeUnit.MILLISECONDS.sleep(300);
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        serverThread.interrupt();
+        serverThread.join(1000);
+    }
+
+    private HttpResponse<String> post(String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/commands"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testBatchRepliesInOrder() throws Exception {
+        HttpResponse<String> response = post("[\"simon: get axe\", \"simon: inv\", {\"player\": \"sion\", \"command\": \"look\"}]");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        String body = response.body();
+        assertTrue(body.startsWith("[\"You picked up"), "First reply should answer the first command");
+        assertTrue(body.contains("\"You are carrying: axe\""));
+        // Multi-line replies are escaped, not split
+        assertTrue(body.contains("cabin") && body.contains("\\n"));
+        assertTrue(body.indexOf("picked up") < body.indexOf("carrying"));
+    }
+
+    @Test
+    void testEmptyBatch() throws Exception {
+        HttpResponse<String> response = post(" [ ] ");
+        assertEquals(200, response.statusCode());
+        assertEquals("[]", response.body());
+    }
+
+    @Test
+    void testMalformedBatchIsRejected() throws Exception {
+        assertEquals(400, post("simon: look").statusCode());
+        assertEquals(400, post("[\"simon: look\"").statusCode());
+        assertEquals(400, post("[{\"player\": \"simon\"}]").statusCode());
+        assertTrue(post("[42]").body().startsWith("{\"error\":"));
+    }
+
+    @Test
+    void testOversizedBatchIsRejected() throws Exception {
+        server.getServerConfig().setMaxBatchCommands(2);
+        assertEquals(413, post("[\"a: look\", \"b: look\", \"c: look\"]").statusCode());
+    }
+
+    @Test
+    void testOversizedBodyIsRejected() throws Exception {
+        server.getServerConfig().setMaxRequestBytes(32);
+        assertEquals(413, post("[\"simon: look\", \"simon: look\", \"simon: look\"]").statusCode());
+        assertEquals(200, post("[\"simon: look\"]").statusCode());
+        // Without a Content-Length the body is only read up to the limit
+        HttpRequest chunked = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/commands"))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(new byte[4096])))
+                .build();
+        assertEquals(413, client.send(chunked, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void testOnlyPostIsAccepted() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/commands")).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, response.statusCode());
+        assertEquals("POST", response.headers().firstValue("Allow").orElse(""));
+    }
+
+    private String readResponse(BufferedReader reader) throws IOException {
+        String statusLine = reader.readLine();
+        int contentLength = 0;
+        String header = reader.readLine();
+        while (header != null && !header.isEmpty()) {
+            if (header.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+            }
+            header = reader.readLine();
+        }
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < contentLength; i++) {
+            body.append((char) reader.read());
+        }
+        return statusLine + "\n" + body;
+    }
+
+    @Test
+    void testConnectionIsKeptAlive() throws Exception {
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            OutputStream output = socket.getOutputStream();
+            String body = "[\"simon: inv\"]";
+            String request = "POST /commands HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+            output.write(request.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            assertTrue(readResponse(reader).startsWith("HTTP/1.1 200"));
+            // Second request on the same socket
+            output.write(request.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            String second = readResponse(reader);
+            assertTrue(second.startsWith("HTTP/1.1 200"), "Connection was not kept alive");
+            assertTrue(second.contains("carrying"));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import edu.uob.servers.ServerConfig;
+
+class LoadGeneratorTests {
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.recordNanos(micros * 1000L);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(500, histogram.percentileMicros(50), 500 * 0.02);
+        assertEquals(990, histogram.percentileMicros(99), 990 * 0.02);
+        assertEquals(999, histogram.percentileMicros(99.9), 999 * 0.02);
+    }
+
+    @Test
+    void testBucketsRoundTripWithinPrecision() {
+        for (long micros = 1; micros < 10_000_000L; micros = micros * 3 + 1) {
+            long value = LatencyHistogram.valueFor(LatencyHistogram.bucketFor(micros));
+            assertTrue(value <= micros && micros - value <= micros / 64 + 1, "Bucket lost too much precision for " + micros);
+        }
+    }
+
+    private String runAgainstServer(ServerConfig config) throws Exception {
+        File entitiesFile = Paths.get("config" + File.separator + "extended-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "extended-actions.xml").toAbsolutePath().toFile();
+        GameServer server = new GameServer(entitiesFile, actionsFile);
+        if (config != null) {
+            server.setServerConfig(config);
+        }
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        int serverPort = port;
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.nonBlockingListenOn(serverPort);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        serverThread.start();
+        TimeUnit.MILLISECONDS.sleep(300);
+        try {
+            LoadGenerator generator = new LoadGenerator(entitiesFile, actionsFile);
+            try (MultiplexedGameClient client = new MultiplexedGameClient("localhost", port, 2)) {
+                generator.run(client, 5, TimeUnit.MILLISECONDS.toNanos(500));
+            }
+            return generator.report();
+        } finally {
+            serverThread.interrupt();
+            serverThread.join(1000);
+        }
+    }
+
+    @Test
+    void testClosedLoopRunAgainstServer() throws Exception {
+        String report = runAgainstServer(null);
+        assertTrue(report.contains("look"), "Report should list the look command");
+        assertTrue(report.contains(" 0 failed"), "No command should fail against a healthy server");
+    }
+
+    @Test
+    void testBusyRepliesAreKeptOutOfTheLatencies() throws Exception {
+        ServerConfig config = new ServerConfig();
+        config.setCommandsPerSecond(1);
+        config.setCommandBurst(1);
+        String report = runAgainstServer(config);
+        Matcher totals = Pattern.compile("total\\s+(\\d+) .*, (\\d+) busy").matcher(report);
+        assertTrue(totals.find(), report);
+        assertTrue(Long.parseLong(totals.group(2)) > 0, "The bots should have hit the rate limit");
+        assertTrue(Long.parseLong(totals.group(1)) <= 10, "Only admitted commands should be timed: " + report);
+    }
+}
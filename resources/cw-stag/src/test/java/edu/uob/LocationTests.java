@@ -0,0 +1,82 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.entities.Artefact;
+import edu.uob.entities.Furniture;
+import edu.uob.entities.GameCharacter;
+import edu.uob.entities.GameEntity;
+import edu.uob.entities.Location;
+
+import java.util.Set;
+
+class LocationTests {
+
+    private Location forest;
+    private Furniture firstTree;
+    private Furniture secondTree;
+    private Artefact key;
+    private GameCharacter elf;
+
+    @BeforeEach
+    void setup() {
+        forest = new Location("forest", "A dark forest");
+        firstTree = new Furniture("tree", "A tall pine tree");
+        secondTree = new Furniture("Tree", "A short oak tree");
+        key = new Artefact("key", "A brass key");
+        elf = new GameCharacter("elf", "An angry elf");
+        forest.addFurniture(firstTree);
+        forest.addFurniture(secondTree);
+        forest.addArtefact(key);
+        forest.addCharacter(elf);
+    }
+
+    @Test
+    void testEntitiesWithTheSameNameAreAllKept() {
+        assertEquals(2, forest.getEntitiesNamed("TREE").size());
+        assertEquals(2, forest.getFurniture().size());
+        assertEquals(4, forest.getEntities().size());
+        assertSame(firstTree, forest.getEntity("tree"));
+        // Adding the same instance again is ignored, as with a set
+        forest.addEntity(firstTree);
+        assertEquals(4, forest.getEntities().size());
+    }
+
+    @Test
+    void testTypedViewsAreLive() {
+        Set<Artefact> artefacts = forest.getArtefacts();
+        assertEquals(Set.of(key), artefacts);
+        Artefact axe = new Artefact("axe", "A sharp axe");
+        forest.addEntity(axe);
+        assertEquals(Set.of(key, axe), artefacts, "The view should show entities added afterwards");
+        assertTrue(forest.getEntities().contains(axe));
+        assertFalse(forest.getFurniture().contains(axe));
+        assertEquals(Set.of(elf), forest.getCharacters());
+    }
+
+    @Test
+    void testRemoveByNameLeavesOtherEntitiesOfThatName() {
+        GameEntity removed = forest.removeEntityNamed("tree");
+        assertSame(firstTree, removed);
+        assertTrue(forest.hasEntity("tree"));
+        assertEquals(Set.of(secondTree), forest.getFurniture());
+        assertSame(secondTree, forest.removeEntityNamed("tree"));
+        assertFalse(forest.hasEntity("tree"));
+        assertNull(forest.removeEntityNamed("tree"));
+        assertNull(forest.getEntity("tree"));
+    }
+
+    @Test
+    void testRemovingOneArtefactKeepsItsTwin() {
+        Artefact secondKey = new Artefact("key", "A spare key");
+        forest.addArtefact(secondKey);
+        forest.removeEntity(key);
+        assertEquals(Set.of(secondKey), forest.getArtefacts());
+        assertTrue(forest.getArtefacts().remove(secondKey));
+        assertFalse(forest.hasEntity("key"));
+        assertEquals(3, forest.getEntities().size());
+    }
+}
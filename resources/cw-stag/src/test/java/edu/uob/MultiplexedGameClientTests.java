@@ -0,0 +1,82 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Paths;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class MultiplexedGameClientTests {
+
+    private Thread serverThread;
+    private int port;
+
+    @BeforeEach
+    void setup() throws Exception {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        GameServer server = new GameServer(entitiesFile, actionsFile);
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        serverThread = new Thread(() -> {
+            try {
+                server.nonBlockingListenOn(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        serverThread.start();
+        TimeUnit.MILLISECONDS.sleep(300);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        serverThread.interrupt();
+        serverThread.join(1000);
+    }
+
+    @Test
+    void testManyPlayersShareFewConnections() throws Exception {
+        try (MultiplexedGameClient client = new MultiplexedGameClient("localhost", port, 2)) {
+            List<CompletableFuture<String>> replies = new LinkedList<>();
+            for (int i = 0; i < 20; i++) {
+                replies.add(client.send("player" + i, "look"));
+            }
+            for (CompletableFuture<String> reply : replies) {
+                assertTrue(reply.get(2, TimeUnit.SECONDS).contains("cabin"));
+            }
+        }
+    }
+
+    @Test
+    void testPipelinedCommandsKeepPlayerOrder() throws Exception {
+        try (MultiplexedGameClient client = new MultiplexedGameClient("localhost", port, 3)) {
+            CompletableFuture<String> get = client.send("simon", "get potion");
+            CompletableFuture<String> inventory = client.send("simon", "inv");
+            CompletableFuture<String> drop = client.send("simon", "drop potion");
+            CompletableFuture<String> emptyInventory = client.send("simon", "inv");
+            assertTrue(get.get(2, TimeUnit.SECONDS).contains("picked up"));
+            assertTrue(inventory.get(2, TimeUnit.SECONDS).contains("potion"));
+            assertTrue(drop.get(2, TimeUnit.SECONDS).contains("dropped"));
+            assertTrue(emptyInventory.get(2, TimeUnit.SECONDS).contains("nothing"));
+        }
+    }
+
+    @Test
+    void testClosedClientFailsFutures() throws Exception {
+        MultiplexedGameClient client = new MultiplexedGameClient("localhost", port, 1);
+        client.close();
+        CompletableFuture<String> reply = client.send("simon", "look");
+        assertThrows(Exception.class, () -> reply.get(2, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,315 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.servers.ServerConfig;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+class ServerListenerTests {
+
+    private GameServer server;
+    private Thread serverThread;
+    private int port;
+
+    @BeforeEach
+    void setup() throws IOException {
+        File entitiesFile = Paths.get("config" + File.separator + "basic-entities.dot").toAbsolutePath().toFile();
+        File actionsFile = Paths.get("config" + File.separator + "basic-actions.xml").toAbsolutePath().toFile();
+        server = new GameServer(entitiesFile, actionsFile);
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (serverThread != null) {
+            serverThread.interrupt();
+            serverThread.join(1000);
+        }
+    }
+
+    private void startNonBlocking() throws InterruptedException {
+        serverThread = new Thread(() -> {
+            try {
+                server.nonBlockingListenOn(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        serverThread.start();
+        TimeUnit.MILLISECONDS.sleep(300);
+    }
+
+    private void startBlocking() throws InterruptedException {
+        serverThread = new Thread(() -> {
+            try {
+                server.blockingListenOn(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        serverThread.start();
+        TimeUnit.MILLISECONDS.sleep(300);
+    }
+
+    private void startThreadPerConnection() throws InterruptedException {
+        serverThread = new Thread(() -> {
+            try {
+                server.threadPerConnectionListenOn(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        serverThread.start();
+        TimeUnit.MILLISECONDS.sleep(300);
+    }
+
+    // Reads one EOT-terminated response, the same way GameClient does
+    private String readResponse(BufferedReader reader) throws IOException {
+        StringBuilder response = new StringBuilder();
+        String line = reader.readLine();
+        while (line != null && !line.contains(String.valueOf((char) 4))) {
+            response.append(line).append("\n");
+            line = reader.readLine();
+        }
+        return response.toString();
+    }
+
+    private String sendOneShot(String command) throws IOException {
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            writer.write(command);
+            writer.newLine();
+            writer.flush();
+            return readResponse(reader);
+        }
+    }
+
+    @Test
+    void testNonBlockingOneShotCommands() throws Exception {
+        startNonBlocking();
+        sendOneShot("simon: get axe");
+        String response = sendOneShot("simon: inv");
+        assertTrue(response.contains("axe"), "Non-blocking listener did not apply the earlier get command");
+    }
+
+    @Test
+    void testNonBlockingServesOtherClientsWhileOneIsIdle() throws Exception {
+        startNonBlocking();
+        // An idle client that never finishes its line must not hold up the others
+        try (Socket idle = new Socket("localhost", port)) {
+            idle.getOutputStream().write("simon: lo".getBytes());
+            idle.getOutputStream().flush();
+            String response = sendOneShot("sion: look");
+            assertTrue(response.contains("cabin"), "Second client was blocked behind an idle connection");
+        }
+    }
+
+    @Test
+    void testThreadPerConnectionServesConcurrentClients() throws Exception {
+        startThreadPerConnection();
+        try (Socket idle = new Socket("localhost", port)) {
+            idle.getOutputStream().write("simon: lo".getBytes());
+            idle.getOutputStream().flush();
+            sendOneShot("sion: get potion");
+            String response = sendOneShot("sion: inv");
+            assertTrue(response.contains("potion"), "Threaded listener did not serve a second client");
+        }
+    }
+
+    @Test
+    void testConcurrentGetsOnlyHandOutOneAxe() throws Exception {
+        startThreadPerConnection();
+        Thread[] players = new Thread[8];
+        for (int i = 0; i < players.length; i++) {
+            String name = "player" + i;
+            players[i] = new Thread(() -> {
+                try {
+                    sendOneShot(name + ": get axe");
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            players[i].start();
+        }
+        int holders = 0;
+        for (int i = 0; i < players.length; i++) {
+            players[i].join(2000);
+            if (sendOneShot("player" + i + ": inv").contains("axe")) {
+                holders++;
+            }
+        }
+        assertEquals(1, holders, "Exactly one concurrent player should have picked up the axe");
+    }
+
+    private String sendLine(BufferedWriter writer, BufferedReader reader, String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+        writer.flush();
+        return readResponse(reader);
+    }
+
+    private void assertSessionCarriesManyCommands() throws IOException {
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            assertTrue(sendLine(writer, reader, "#session").startsWith("Session started"));
+            sendLine(writer, reader, "simon: get axe");
+            sendLine(writer, reader, "simon: goto forest");
+            String response = sendLine(writer, reader, "simon: look");
+            assertTrue(response.contains("forest"), "Session did not keep serving commands on one connection");
+            response = sendLine(writer, reader, "simon: inv");
+            assertTrue(response.contains("axe"));
+        }
+        // Legacy one-shot clients keep working next to sessions
+        assertTrue(sendOneShot("sion: look").contains("cabin"));
+    }
+
+    @Test
+    void testNonBlockingPersistentSession() throws Exception {
+        startNonBlocking();
+        assertSessionCarriesManyCommands();
+    }
+
+    @Test
+    void testThreadPerConnectionPersistentSession() throws Exception {
+        startThreadPerConnection();
+        assertSessionCarriesManyCommands();
+    }
+
+    @Test
+    void testBlockingListenerRefusesSessions() throws Exception {
+        startBlocking();
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            assertFalse(sendLine(writer, reader, "#session").startsWith("Session started"));
+            assertNull(reader.readLine(), "Blocking listener should close the refused session");
+        }
+        assertTrue(sendOneShot("simon: look").contains("cabin"));
+    }
+
+    @Test
+    void testBlockingListenerCapsFramingLines() throws Exception {
+        startBlocking();
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            assertTrue(sendLine(writer, reader, "#framing eot").startsWith("Framing set to eot"));
+            assertTrue(sendLine(writer, reader, "#framing eot").startsWith("Too many control lines"));
+            assertNull(reader.readLine(), "Blocking listener should close a connection that only sends control lines");
+        }
+        assertTrue(sendOneShot("simon: look").contains("cabin"));
+    }
+
+    private void assertPipelinedRepliesArriveInOrder() throws IOException {
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            // Send the whole batch before reading a single reply
+            writer.write("#session\nsimon: get axe\nsimon: inv\nsimon: drop axe\nsimon: inv\nsimon: look\n");
+            writer.flush();
+            assertTrue(readResponse(reader).startsWith("Session started"));
+            assertTrue(readResponse(reader).contains("picked up"));
+            assertTrue(readResponse(reader).contains("axe"));
+            assertTrue(readResponse(reader).contains("dropped"));
+            assertTrue(readResponse(reader).contains("nothing"));
+            assertTrue(readResponse(reader).contains("axe"), "Replies were not returned in arrival order");
+        }
+    }
+
+    @Test
+    void testNonBlockingPipelinedCommands() throws Exception {
+        startNonBlocking();
+        assertPipelinedRepliesArriveInOrder();
+    }
+
+    @Test
+    void testThreadPerConnectionPipelinedCommands() throws Exception {
+        startThreadPerConnection();
+        assertPipelinedRepliesArriveInOrder();
+    }
+
+    private void assertLengthFramedReplies() throws IOException {
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            sendLine(writer, reader, "#session");
+            assertTrue(sendLine(writer, reader, "#framing length").startsWith("Framing set to length"));
+            LengthFrameReader frames = new LengthFrameReader(Channels.newChannel(socket.getInputStream()));
+            writer.write("simon: look\nsimon: get axe\nsimon: inv\n");
+            writer.flush();
+            String look = frames.readFrame();
+            assertTrue(look.contains("cabin") && look.contains("forest"), "Multi-line look reply was not framed whole");
+            assertTrue(frames.readFrame().contains("picked up"));
+            assertEquals("You are carrying: axe", frames.readFrame());
+        }
+    }
+
+    @Test
+    void testNonBlockingLengthFraming() throws Exception {
+        startNonBlocking();
+        assertLengthFramedReplies();
+    }
+
+    @Test
+    void testThreadPerConnectionLengthFraming() throws Exception {
+        startThreadPerConnection();
+        assertLengthFramedReplies();
+    }
+
+    private void useEngine(String engine) {
+        ServerConfig config = new ServerConfig();
+        config.setEngine(engine);
+        server.setServerConfig(config);
+    }
+
+    @Test
+    void testNonBlockingPipelinedCommandsOnTheSequencer() throws Exception {
+        useEngine("sequencer");
+        startNonBlocking();
+        assertPipelinedRepliesArriveInOrder();
+        assertLengthFramedReplies();
+    }
+
+    @Test
+    void testNonBlockingPipelinedCommandsOnActors() throws Exception {
+        useEngine("actor");
+        startNonBlocking();
+        assertPipelinedRepliesArriveInOrder();
+        assertTrue(sendOneShot("sion: look").contains("cabin"));
+    }
+
+    @Test
+    void testFramingSwitchWaitsForRepliesInFlight() throws Exception {
+        useEngine("sequencer");
+        startNonBlocking();
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            writer.write("#session\nsimon: look\n#framing length\n");
+            writer.flush();
+            assertTrue(readResponse(reader).startsWith("Session started"));
+            // Sent before the switch, so still terminated the old way
+            assertTrue(readResponse(reader).contains("cabin"));
+            assertTrue(readResponse(reader).startsWith("Framing set to length"));
+        }
+    }
+}
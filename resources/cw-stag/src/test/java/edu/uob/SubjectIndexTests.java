@@ -0,0 +1,76 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.actions.SubjectIndex;
+import edu.uob.entities.Artefact;
+import edu.uob.entities.Location;
+import edu.uob.games.GameController;
+import edu.uob.games.GameState;
+import edu.uob.games.GameWorld;
+
+import java.util.List;
+import java.util.Set;
+
+class SubjectIndexTests {
+
+    private GameWorld world;
+    private GameController controller;
+    private CustomAction sharpen;
+    private CustomAction polish;
+    private CustomAction whistle;
+
+    private CustomAction action(String trigger, String narration, String... subjects) {
+        CustomAction action = new CustomAction();
+        action.addTriggers(trigger);
+        for (String subject : subjects) {
+            action.addSubjects(subject);
+        }
+        action.addNarration(narration);
+        return action;
+    }
+
+    @BeforeEach
+    void setup() {
+        world = new GameWorld();
+        Location cabin = new Location("cabin", "A log cabin");
+        cabin.addArtefact(new Artefact("axe", "A razor sharp axe"));
+        world.addLocation(cabin);
+        sharpen = action("use", "You sharpen the axe", "axe");
+        polish = action("use", "You polish the horn", "horn");
+        whistle = action("whistle", "You whistle a tune");
+        world.addAction(sharpen);
+        world.addAction(polish);
+        world.addAction(whistle);
+        controller = new GameController(world, new GameState());
+    }
+
+    @Test
+    void testActionsAreIndexedBySubject() {
+        SubjectIndex index = world.getSubjectIndex();
+        assertEquals(Set.of(sharpen), index.getActionsWithSubject("AXE"));
+        assertTrue(index.getActionsWithSubject("whistle").isEmpty());
+        assertEquals(Set.of(sharpen, whistle), index.getRelevantActions(List.of("axe", "cabin")),
+                "Actions without subjects are always relevant");
+    }
+
+    @Test
+    void testIndexIsRebuiltWhenActionsAreAdded() {
+        assertTrue(world.getSubjectIndex().getActionsWithSubject("key").isEmpty());
+        CustomAction unlock = action("unlock", "You unlock it", "key");
+        world.addAction(unlock);
+        assertEquals(Set.of(unlock), world.getSubjectIndex().getActionsWithSubject("key"));
+    }
+
+    @Test
+    void testCandidatesWithNothingAroundArePruned() {
+        // Only the axe is here, so the horn action can never run and is not ambiguous with it
+        assertEquals("You sharpen the axe", controller.handleCommand("simon: use axe"));
+        world.getLocation("cabin").addArtefact(new Artefact("horn", "A brass horn"));
+        assertTrue(controller.handleCommand("simon: use").contains("ambiguous"));
+    }
+}
@@ -0,0 +1,77 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.actions.CustomActionExecutor;
+import edu.uob.entities.Artefact;
+import edu.uob.entities.CanonicalNames;
+import edu.uob.entities.Furniture;
+import edu.uob.entities.Location;
+import edu.uob.games.PlayerState;
+
+import java.util.BitSet;
+
+class SubjectPreconditionTests {
+
+    private Location forest;
+    private PlayerState simon;
+    private CustomAction chop;
+
+    @BeforeEach
+    void setup() {
+        forest = new Location("forest", "A dark forest");
+        forest.addFurniture(new Furniture("tree", "A tall tree"));
+        simon = new PlayerState("simon", forest);
+        chop = new CustomAction();
+        chop.addTriggers("chop");
+        chop.addSubjects("tree");
+        chop.addSubjects("Axe");
+    }
+
+    private String missingName() {
+        BitSet missing = CustomActionExecutor.missingSubjects(simon, forest, chop);
+        return CanonicalNames.nameOf(missing.nextSetBit(0));
+    }
+
+    @Test
+    void testSubjectsCanBeCarriedOrLyingAround() {
+        assertEquals("axe", missingName());
+        Artefact axe = new Artefact("axe", "A sharp axe");
+        forest.addArtefact(axe);
+        assertTrue(CustomActionExecutor.missingSubjects(simon, forest, chop).isEmpty());
+        forest.removeEntity(axe);
+        simon.addToInventory(axe);
+        assertTrue(CustomActionExecutor.missingSubjects(simon, forest, chop).isEmpty());
+        simon.removeFromInventory(axe);
+        assertEquals("axe", missingName());
+    }
+
+    @Test
+    void testNameStaysAvailableWhileOneCopyRemains() {
+        Artefact firstAxe = new Artefact("axe", "A sharp axe");
+        Artefact secondAxe = new Artefact("axe", "A blunt axe");
+        simon.addToInventory(firstAxe);
+        simon.addToInventory(secondAxe);
+        simon.removeFromInventory(firstAxe);
+        assertTrue(CustomActionExecutor.missingSubjects(simon, forest, chop).isEmpty());
+
+        Furniture secondTree = new Furniture("tree", "A short tree");
+        forest.addFurniture(secondTree);
+        forest.removeEntityNamed("tree");
+        assertTrue(forest.hasEntity("tree"));
+        assertTrue(CustomActionExecutor.missingSubjects(simon, forest, chop).isEmpty());
+        forest.removeEntityNamed("tree");
+        assertEquals("tree", missingName());
+    }
+
+    @Test
+    void testCompiledSubjectsAreNotSharedWithCallers() {
+        BitSet copy = chop.copySubjectIds();
+        copy.clear();
+        assertEquals(2, chop.copySubjectIds().cardinality());
+    }
+}
@@ -0,0 +1,89 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uob.actions.CustomAction;
+import edu.uob.actions.CustomActionExecutor;
+import edu.uob.actions.GameAction;
+import edu.uob.actions.TriggerMatcher;
+import edu.uob.parsers.ActionParser;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class TriggerMatcherTests {
+
+    private List<GameAction> loadActions(String fileName) {
+        File actionsFile = Paths.get("config" + File.separator + fileName).toAbsolutePath().toFile();
+        return new ArrayList<>(new ActionParser().parseAction(actionsFile));
+    }
+
+    private CustomAction action(String... triggers) {
+        CustomAction action = new CustomAction();
+        for (String trigger : triggers) {
+            action.addTriggers(trigger);
+        }
+        return action;
+    }
+
+    // What matching every action one by one returns
+    private Set<CustomAction> linearMatch(List<GameAction> actions, String command) {
+        Set<CustomAction> matched = new HashSet<>();
+        for (GameAction action : actions) {
+            CustomAction customAction = (CustomAction) action;
+            if (CustomActionExecutor.matchTrigger(customAction.getTriggers(), command)) {
+                matched.add(customAction);
+            }
+        }
+        return matched;
+    }
+
+    @Test
+    void testMultiWordTriggersMatchAsPhraseOrScatteredWords() {
+        CustomAction cutDown = action("cut down");
+        CustomAction blowHorn = action("blow horn");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(cutDown, blowHorn));
+        assertEquals(Set.of(cutDown), matcher.match("cut down tree"));
+        assertEquals(Set.of(cutDown), matcher.match("down the tree I cut"));
+        assertEquals(Set.of(blowHorn), matcher.match("Blow HORN"));
+        assertTrue(matcher.match("cut tree").isEmpty(), "Every word of the trigger is needed");
+    }
+
+    @Test
+    void testOverlappingTriggersAreAllFound() {
+        CustomAction he = action("he");
+        CustomAction she = action("she");
+        CustomAction hers = action("hers");
+        TriggerMatcher matcher = new TriggerMatcher(List.of(he, she, hers));
+        assertEquals(Set.of(he, she, hers), matcher.match("ushers"));
+        assertEquals(Set.of(he), matcher.match("ahe"));
+    }
+
+    @Test
+    void testAgreesWithPerActionMatching() {
+        List<GameAction> actions = loadActions("extended-actions.xml");
+        actions.add(action("pick up", "lift"));
+        actions.add(action("open"));
+        TriggerMatcher matcher = new TriggerMatcher(actions);
+        List<String> words = List.of("open", "unlock", "door", "trapdoor", "chop", "cut", "down", "tree", "drink",
+                "potion", "fight", "hit", "attack", "elf", "pay", "bridge", "dig", "blow", "horn", "pick", "up",
+                "lift", "log", "axe", "cutting", "xyz");
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder command = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                command.append(words.get(random.nextInt(words.size()))).append(' ');
+            }
+            String text = command.toString().trim();
+            assertEquals(linearMatch(actions, text), matcher.match(text), text);
+        }
+    }
+}